@@ -0,0 +1,56 @@
+package lab.bookstore.catalogservice.domain;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+
+/**
+ * Validates books the way every POST and PUT does, including the ISBN pattern.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BookValidationBenchmark {
+
+	private ValidatorFactory validatorFactory;
+	private Validator validator;
+	private Book validBook;
+	private Book invalidIsbnBook;
+
+	@Setup
+	public void setUp() {
+		validatorFactory = Validation.buildDefaultValidatorFactory();
+		validator = validatorFactory.getValidator();
+		validBook = Book.of("1234567890123", "java", "jim", 888.8, "Gotop");
+		invalidIsbnBook = Book.of("a234567890", "java", "jim", 888.8, "Gotop");
+	}
+
+	@TearDown
+	public void tearDown() {
+		validatorFactory.close();
+	}
+
+	@Benchmark
+	public Set<ConstraintViolation<Book>> validBook() {
+		return validator.validate(validBook);
+	}
+
+	@Benchmark
+	public Set<ConstraintViolation<Book>> invalidIsbn() {
+		return validator.validate(invalidIsbnBook);
+	}
+
+}
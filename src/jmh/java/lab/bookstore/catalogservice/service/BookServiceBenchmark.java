@@ -0,0 +1,86 @@
+package lab.bookstore.catalogservice.service;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import lab.bookstore.catalogservice.config.BookCacheProperties;
+import lab.bookstore.catalogservice.domain.Book;
+import lab.bookstore.catalogservice.domain.BookNotFoundException;
+
+/**
+ * Looks books up through {@link BookService} against an in-memory repository, with the
+ * ISBN cache warm and cold, from several threads at once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(4)
+public class BookServiceBenchmark {
+
+	@Param({ "1000" })
+	public int catalogSize;
+
+	private BookService bookService;
+	private BookCache bookCache;
+	private List<String> isbns;
+
+	@Setup
+	public void setUp() {
+		var books = IntStream.range(0, catalogSize)
+				.mapToObj(i -> Book.of(String.valueOf(1_000_000_000L + i), "Title " + i, "Author", 9.90, "Gotop"))
+				.toList();
+		isbns = books.stream().map(Book::isbn).toList();
+		bookCache = new BookCache(new BookCacheProperties(), new SimpleMeterRegistry());
+		var bookRepository = InMemoryBookRepository.of(books);
+		bookService = new BookService(bookRepository, bookCache, new CatalogAggregates(bookRepository),
+				Validation.buildDefaultValidatorFactory().getValidator());
+		isbns.forEach(bookService::viewBookDetails);
+	}
+
+	@Benchmark
+	public Book viewBookDetailsCached(ThreadIndex index) {
+		return bookService.viewBookDetails(isbns.get(index.next(isbns.size())));
+	}
+
+	@Benchmark
+	public Book viewBookDetailsUncached(ThreadIndex index) {
+		var isbn = isbns.get(index.next(isbns.size()));
+		bookCache.invalidate(isbn);
+		return bookService.viewBookDetails(isbn);
+	}
+
+	@Benchmark
+	public Object viewBookDetailsNotFound() {
+		try {
+			return bookService.viewBookDetails("9999999999");
+		} catch (BookNotFoundException ex) {
+			return ex;
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class ThreadIndex {
+
+		private int next;
+
+		int next(int bound) {
+			next = next + 1 == bound ? 0 : next + 1;
+			return next;
+		}
+
+	}
+
+}
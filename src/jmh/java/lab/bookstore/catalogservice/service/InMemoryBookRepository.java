@@ -0,0 +1,36 @@
+package lab.bookstore.catalogservice.service;
+
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import lab.bookstore.catalogservice.domain.Book;
+import lab.bookstore.catalogservice.repo.BookRepository;
+
+/**
+ * Stands in for {@link BookRepository} with a map keyed by ISBN, so service benchmarks
+ * measure the service rather than the database. Only {@code findByIsbn} is answered;
+ * any other call fails, so a benchmark that starts relying on one does not silently
+ * measure a made-up implementation.
+ */
+final class InMemoryBookRepository {
+
+	private InMemoryBookRepository() {
+	}
+
+	static BookRepository of(Collection<Book> books) {
+		Map<String, Book> byIsbn = books.stream().collect(Collectors.toUnmodifiableMap(Book::isbn, Function.identity()));
+		return (BookRepository) Proxy.newProxyInstance(BookRepository.class.getClassLoader(),
+				new Class<?>[] { BookRepository.class }, (proxy, method, args) -> switch (method.getName()) {
+					case "findByIsbn" -> Optional.ofNullable(byIsbn.get((String) args[0]));
+					case "toString" -> "InMemoryBookRepository" + byIsbn.keySet();
+					case "hashCode" -> System.identityHashCode(proxy);
+					case "equals" -> proxy == args[0];
+					default -> throw new UnsupportedOperationException(method.getName());
+				});
+	}
+
+}
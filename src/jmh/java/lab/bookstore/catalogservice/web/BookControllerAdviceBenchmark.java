@@ -0,0 +1,66 @@
+package lab.bookstore.catalogservice.web;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.core.MethodParameter;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lab.bookstore.catalogservice.domain.Book;
+import lab.bookstore.catalogservice.domain.BookAlreadyExistsException;
+import lab.bookstore.catalogservice.domain.BookNotFoundException;
+
+/**
+ * Maps the catalog errors to response bodies, including building the exceptions, since
+ * that is what a failing request pays for.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BookControllerAdviceBenchmark {
+
+	private BookControllerAdvice advice;
+	private MethodParameter bookParameter;
+	private Book invalidBook;
+
+	@Setup
+	public void setUp() throws Exception {
+		advice = new BookControllerAdvice(new SimpleMeterRegistry());
+		bookParameter = new MethodParameter(BookController.class.getMethod("post", Book.class), 0);
+		invalidBook = Book.of("a234567890", "", "jim", -1.0, "Gotop");
+	}
+
+	@Benchmark
+	public String bookNotFound() {
+		return advice.bookNotFoundHandler(new BookNotFoundException("1234567890"));
+	}
+
+	@Benchmark
+	public String bookAlreadyExists() {
+		return advice.bookAlreadyExistsHandler(new BookAlreadyExistsException("1234567890"));
+	}
+
+	@Benchmark
+	public Map<String, String> validationErrors() {
+		var bindingResult = new BeanPropertyBindingResult(invalidBook, "book");
+		bindingResult.addError(fieldError("isbn", invalidBook.isbn(), "The ISBN format must be valid."));
+		bindingResult.addError(fieldError("name", invalidBook.name(), "The book name must be defined."));
+		bindingResult.addError(fieldError("price", invalidBook.price(), "The book price must be greater than zero."));
+		return advice.handleValidationExceptions(new MethodArgumentNotValidException(bookParameter, bindingResult));
+	}
+
+	private static FieldError fieldError(String field, Object rejectedValue, String message) {
+		return new FieldError("book", field, rejectedValue, false, null, null, message);
+	}
+
+}
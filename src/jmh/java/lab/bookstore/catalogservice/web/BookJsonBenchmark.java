@@ -0,0 +1,54 @@
+package lab.bookstore.catalogservice.web;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import lab.bookstore.catalogservice.domain.Book;
+
+/**
+ * Serializes and parses the same {@link Book} shape as {@code BookJsonTests}, with the
+ * Jackson defaults Spring Boot applies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BookJsonBenchmark {
+
+	private ObjectWriter writer;
+	private ObjectReader reader;
+	private Book book;
+	private byte[] json;
+
+	@Setup
+	public void setUp() throws Exception {
+		var objectMapper = Jackson2ObjectMapperBuilder.json().build();
+		writer = objectMapper.writerFor(Book.class);
+		reader = objectMapper.readerFor(Book.class);
+		var now = Instant.parse("2024-07-01T21:50:44.145339Z");
+		book = new Book(99L, "1234567890", "JavaBook", "Jim", 888.8, "Gotop", now, now, "Jim2", "Jim3", 9);
+		json = writer.writeValueAsBytes(book);
+	}
+
+	@Benchmark
+	public byte[] serialize() throws Exception {
+		return writer.writeValueAsBytes(book);
+	}
+
+	@Benchmark
+	public Book deserialize() throws Exception {
+		return reader.readValue(json);
+	}
+
+}
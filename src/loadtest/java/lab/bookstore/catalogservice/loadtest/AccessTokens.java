@@ -0,0 +1,73 @@
+package lab.bookstore.catalogservice.loadtest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Signed access tokens obtained from Keycloak with the password grant, renewed shortly
+ * before they expire.
+ */
+final class AccessTokens implements Supplier<String> {
+
+	private static final Duration RENEWAL_MARGIN = Duration.ofSeconds(30);
+	private static final ObjectMapper objectMapper = new ObjectMapper();
+
+	private final HttpClient client;
+	private final URI tokenUrl;
+	private final Map<String, String> form;
+	private String accessToken;
+	private Instant renewAt = Instant.MIN;
+
+	AccessTokens(HttpClient client, URI tokenUrl, String clientId, String username, String password) {
+		this.client = client;
+		this.tokenUrl = tokenUrl;
+		this.form = Map.of("grant_type", "password", "client_id", clientId, "username", username, "password", password);
+	}
+
+	@Override
+	public synchronized String get() {
+		if (Instant.now().isAfter(renewAt)) {
+			renew();
+		}
+		return accessToken;
+	}
+
+	private void renew() {
+		var body = form.entrySet().stream()
+				.map(entry -> entry.getKey() + "=" + URLEncoder.encode(entry.getValue(), StandardCharsets.UTF_8))
+				.collect(Collectors.joining("&"));
+		var request = HttpRequest.newBuilder(tokenUrl)
+				.header("Content-Type", "application/x-www-form-urlencoded")
+				.POST(HttpRequest.BodyPublishers.ofString(body))
+				.build();
+		try {
+			var response = client.send(request, BodyHandlers.ofString());
+			if (response.statusCode() != 200) {
+				throw new IllegalStateException("Keycloak refused the token request with " + response.statusCode()
+						+ ": " + response.body());
+			}
+			var token = objectMapper.readTree(response.body());
+			accessToken = token.get("access_token").asText();
+			renewAt = Instant.now().plusSeconds(token.get("expires_in").asLong()).minus(RENEWAL_MARGIN);
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(ex);
+		}
+	}
+
+}
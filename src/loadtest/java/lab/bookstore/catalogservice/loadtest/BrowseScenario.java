@@ -0,0 +1,34 @@
+package lab.bookstore.catalogservice.loadtest;
+
+import java.util.Random;
+
+/**
+ * Read-heavy storefront browsing: catalog pages at random depths, book details and
+ * searches.
+ */
+final class BrowseScenario implements Scenario {
+
+	private final Catalog catalog;
+
+	BrowseScenario(Catalog catalog) {
+		this.catalog = catalog;
+	}
+
+	@Override
+	public boolean writes() {
+		return false;
+	}
+
+	@Override
+	public Request next(Random random) {
+		var dice = random.nextInt(100);
+		if (dice < 60) {
+			return new Request("page", catalog.get("/books?limit=20&after=" + random.nextInt(catalog.size())).build());
+		}
+		if (dice < 85) {
+			return new Request("details", catalog.get("/books/" + Catalog.isbn(random.nextInt(catalog.size()))).build());
+		}
+		return new Request("search", catalog.get("/books/search?q=" + Catalog.word(random)).build());
+	}
+
+}
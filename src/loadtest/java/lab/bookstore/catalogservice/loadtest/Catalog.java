@@ -0,0 +1,78 @@
+package lab.bookstore.catalogservice.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * The books a load test works on, identified by position, and the requests that read
+ * and write them. ISBNs and contents depend only on the position, so every run seeds
+ * and asks for the same catalog.
+ */
+final class Catalog {
+
+	private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+	private static final String[] WORDS = { "spring", "cloud", "native", "java", "patterns", "reactive", "data",
+			"kubernetes", "security", "testing", "microservices", "kotlin", "systems", "design", "streams" };
+	private static final String[] PUBLISHERS = { "Manning", "Gotop", "O'Reilly", "Pragmatic", "Apress" };
+
+	private final URI baseUrl;
+	private final int size;
+	private final Supplier<String> accessToken;
+
+	Catalog(URI baseUrl, int size, Supplier<String> accessToken) {
+		this.baseUrl = baseUrl;
+		this.size = size;
+		this.accessToken = accessToken;
+	}
+
+	int size() {
+		return size;
+	}
+
+	static String isbn(int position) {
+		return String.valueOf(9_000_000_000L + position);
+	}
+
+	static String word(Random random) {
+		return WORDS[random.nextInt(WORDS.length)];
+	}
+
+	static String json(int position, double price) {
+		return String.format(Locale.ROOT,
+				"{\"isbn\":\"%s\",\"name\":\"%s %s %d\",\"author\":\"Author %d\",\"price\":%.2f,\"publisher\":\"%s\"}",
+				isbn(position), capitalize(WORDS[position % WORDS.length]),
+				capitalize(WORDS[(position / WORDS.length) % WORDS.length]), position, position % 500, price,
+				PUBLISHERS[position % PUBLISHERS.length]);
+	}
+
+	HttpRequest.Builder get(String pathAndQuery) {
+		return HttpRequest.newBuilder(baseUrl.resolve(pathAndQuery))
+				.timeout(REQUEST_TIMEOUT)
+				.header("Accept", "application/json")
+				.header("Accept-Encoding", "gzip")
+				.GET();
+	}
+
+	HttpRequest.Builder write(String method, String path, String contentType, BodyPublisher body) {
+		return HttpRequest.newBuilder(baseUrl.resolve(path))
+				.timeout(REQUEST_TIMEOUT)
+				.header("Authorization", "Bearer " + accessToken.get())
+				.header("Content-Type", contentType)
+				.method(method, body);
+	}
+
+	HttpRequest.Builder delete(String path) {
+		return write("DELETE", path, "application/json", BodyPublishers.noBody());
+	}
+
+	private static String capitalize(String word) {
+		return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+	}
+
+}
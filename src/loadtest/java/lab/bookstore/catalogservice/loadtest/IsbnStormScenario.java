@@ -0,0 +1,46 @@
+package lab.bookstore.catalogservice.loadtest;
+
+import java.util.Random;
+import java.util.StringJoiner;
+
+/**
+ * Order services resolving carts: most lookups hit a small set of best sellers, and one
+ * in five resolves a whole cart with a batch lookup.
+ */
+final class IsbnStormScenario implements Scenario {
+
+	private static final double HOT_SHARE = 0.01;
+	private static final int HOT_PROBABILITY = 90;
+
+	private final Catalog catalog;
+
+	IsbnStormScenario(Catalog catalog) {
+		this.catalog = catalog;
+	}
+
+	@Override
+	public boolean writes() {
+		return false;
+	}
+
+	@Override
+	public Request next(Random random) {
+		if (random.nextInt(100) < 80) {
+			return new Request("details", catalog.get("/books/" + isbn(random)).build());
+		}
+		var cart = new StringJoiner(",");
+		var cartSize = 10 + random.nextInt(21);
+		for (var i = 0; i < cartSize; i++) {
+			cart.add(isbn(random));
+		}
+		return new Request("lookup", catalog.get("/books?isbn=" + cart).build());
+	}
+
+	private String isbn(Random random) {
+		var hotSetSize = Math.max(1, (int) (catalog.size() * HOT_SHARE));
+		return Catalog.isbn(random.nextInt(100) < HOT_PROBABILITY
+				? random.nextInt(hotSetSize)
+				: random.nextInt(catalog.size()));
+	}
+
+}
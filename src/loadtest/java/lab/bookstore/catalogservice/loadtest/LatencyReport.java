@@ -0,0 +1,111 @@
+package lab.bookstore.catalogservice.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Latency histograms and outcome counts per operation. Latencies are measured from the
+ * time a request was due to be sent, not from when it was actually sent, so a stalled
+ * service is charged for the requests queued behind it.
+ */
+final class LatencyReport {
+
+	private static final long HIGHEST_TRACKABLE_LATENCY = TimeUnit.MINUTES.toNanos(1);
+
+	private final Map<String, Operation> operations = new ConcurrentHashMap<>();
+	private final LongAdder skipped = new LongAdder();
+
+	void record(String operation, long latencyNanos, int status) {
+		operations.computeIfAbsent(operation, name -> new Operation()).record(latencyNanos, status);
+	}
+
+	void recordFailure(String operation, long latencyNanos) {
+		record(operation, latencyNanos, 0);
+	}
+
+	/**
+	 * Counts an arrival that was not sent because too many requests were in flight.
+	 */
+	void recordSkipped() {
+		skipped.increment();
+	}
+
+	void reset() {
+		operations.clear();
+		skipped.reset();
+	}
+
+	void print(PrintStream out, String scenario, double rate, Duration elapsed) {
+		var seconds = elapsed.toNanos() / 1e9;
+		out.printf("%nScenario %s at %.0f requests/s for %.1f s%n", scenario, rate, seconds);
+		out.printf("%-10s %9s %9s %8s %9s %9s %9s %9s %9s%n",
+				"operation", "requests", "req/s", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+		var total = new Operation();
+		new TreeMap<>(operations).forEach((name, operation) -> {
+			print(out, name, operation, seconds);
+			total.add(operation);
+		});
+		print(out, "total", total, seconds);
+		if (skipped.sum() > 0) {
+			out.printf("%d arrivals were skipped with too many requests in flight; the results understate latency.%n",
+					skipped.sum());
+		}
+	}
+
+	/**
+	 * Writes the percentile distribution of each operation, which HdrHistogram's plotter
+	 * can chart.
+	 */
+	void write(Path directory, String scenario) throws IOException {
+		Files.createDirectories(directory);
+		for (var entry : operations.entrySet()) {
+			var file = directory.resolve(scenario + "-" + entry.getKey() + ".hgrm");
+			try (var out = new PrintStream(Files.newOutputStream(file))) {
+				entry.getValue().histogram.outputPercentileDistribution(out, 1e6);
+			}
+		}
+	}
+
+	private static void print(PrintStream out, String name, Operation operation, double seconds) {
+		var histogram = operation.histogram;
+		out.printf("%-10s %9d %9.1f %8d %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+				name, histogram.getTotalCount(), histogram.getTotalCount() / seconds, operation.errors.sum(),
+				millis(histogram, 50), millis(histogram, 90), millis(histogram, 99), millis(histogram, 99.9),
+				histogram.getMaxValue() / 1e6);
+	}
+
+	private static double millis(Histogram histogram, double percentile) {
+		return histogram.getValueAtPercentile(percentile) / 1e6;
+	}
+
+	private static final class Operation {
+
+		private final Histogram histogram = new ConcurrentHistogram(HIGHEST_TRACKABLE_LATENCY, 3);
+		private final LongAdder errors = new LongAdder();
+
+		void record(long latencyNanos, int status) {
+			histogram.recordValue(Math.min(latencyNanos, HIGHEST_TRACKABLE_LATENCY));
+			if (status == 0 || status >= 400) {
+				errors.increment();
+			}
+		}
+
+		void add(Operation other) {
+			histogram.add(other.histogram);
+			errors.add(other.errors.sum());
+		}
+
+	}
+
+}
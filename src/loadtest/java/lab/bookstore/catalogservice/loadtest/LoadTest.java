@@ -0,0 +1,72 @@
+package lab.bookstore.catalogservice.loadtest;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Drives a running catalog service with one of the scenarios and reports latency and
+ * throughput per operation. Run it with {@code ./gradlew loadTest -PloadTestArgs="..."};
+ * see the README for the options.
+ */
+public final class LoadTest {
+
+	private LoadTest() {
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		var options = LoadTestOptions.parse(args);
+		var client = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_1_1)
+				.connectTimeout(Duration.ofSeconds(5))
+				.build();
+		var accessTokens = new AccessTokens(client, options.tokenUrl(), options.clientId(), options.username(),
+				options.password());
+		var catalog = new Catalog(options.baseUrl(), options.catalogSize(), accessTokens);
+		var scenario = Scenario.of(options.scenario(), catalog);
+		if (options.seedCatalog()) {
+			seed(client, catalog);
+		}
+		var random = new Random(options.seed());
+		var runner = new OpenModelRunner(client, options.maxInFlight());
+		var report = new LatencyReport();
+		if (!options.warmup().isZero()) {
+			System.out.printf("Warming up for %s%n", options.warmup());
+			runner.run(scenario, options.rate(), options.warmup(), random, report);
+			report.reset();
+		}
+		System.out.printf("Running %s at %.0f requests/s for %s%n", options.scenario(), options.rate(),
+				options.duration());
+		var elapsed = runner.run(scenario, options.rate(), options.duration(), random, report);
+		report.print(System.out, options.scenario(), options.rate(), elapsed);
+		report.write(options.reportDirectory(), options.scenario());
+		System.out.printf("Percentile distributions written to %s%n", options.reportDirectory().toAbsolutePath());
+	}
+
+	/**
+	 * Imports the catalog unless its last book is already there. The import skips the
+	 * ISBNs that exist, so an interrupted seeding is completed by the next run.
+	 */
+	private static void seed(HttpClient client, Catalog catalog) throws IOException, InterruptedException {
+		var last = client.send(catalog.get("/books/" + Catalog.isbn(catalog.size() - 1)).build(),
+				BodyHandlers.discarding());
+		if (last.statusCode() == 200) {
+			return;
+		}
+		System.out.printf("Seeding a catalog of %d books%n", catalog.size());
+		var feed = IntStream.range(0, catalog.size())
+				.mapToObj(position -> Catalog.json(position, 5 + position % 9500 / 100.0))
+				.collect(Collectors.joining("\n"));
+		var response = client.send(catalog.write("POST", "/books/import", "application/x-ndjson",
+				BodyPublishers.ofString(feed)).timeout(Duration.ofMinutes(5)).build(), BodyHandlers.ofString());
+		if (response.statusCode() != 200) {
+			throw new IllegalStateException("Seeding failed with " + response.statusCode() + ": " + response.body());
+		}
+	}
+
+}
@@ -0,0 +1,65 @@
+package lab.bookstore.catalogservice.loadtest;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Command line options of {@link LoadTest}, given as {@code --name=value}.
+ */
+record LoadTestOptions(
+		String scenario,
+		URI baseUrl,
+		double rate,
+		Duration warmup,
+		Duration duration,
+		long seed,
+		int catalogSize,
+		boolean seedCatalog,
+		int maxInFlight,
+		URI tokenUrl,
+		String clientId,
+		String username,
+		String password,
+		Path reportDirectory) {
+
+	static LoadTestOptions parse(String[] args) {
+		var values = new HashMap<String, String>();
+		for (var arg : args) {
+			if (!arg.startsWith("--") || !arg.contains("=")) {
+				throw new IllegalArgumentException("Expected --name=value but got " + arg);
+			}
+			var separator = arg.indexOf('=');
+			values.put(arg.substring(2, separator), arg.substring(separator + 1));
+		}
+		var keycloakUrl = value(values, "keycloak-url", "http://localhost:8080");
+		var realm = value(values, "realm", "LineBookstore");
+		var options = new LoadTestOptions(
+				value(values, "scenario", "browse"),
+				URI.create(value(values, "base-url", "http://localhost:9001")),
+				Double.parseDouble(value(values, "rate", "200")),
+				Duration.parse("PT" + value(values, "warmup", "10s")),
+				Duration.parse("PT" + value(values, "duration", "60s")),
+				Long.parseLong(value(values, "seed", "42")),
+				Integer.parseInt(value(values, "catalog-size", "10000")),
+				Boolean.parseBoolean(value(values, "seed-catalog", "true")),
+				Integer.parseInt(value(values, "max-in-flight", "2000")),
+				URI.create(keycloakUrl + "/realms/" + realm + "/protocol/openid-connect/token"),
+				value(values, "client-id", "line-test"),
+				value(values, "username", "isabelle"),
+				value(values, "password", "password"),
+				Path.of(value(values, "report-dir", "build/reports/loadtest")));
+		if (!values.isEmpty()) {
+			throw new IllegalArgumentException("Unknown options " + values.keySet());
+		}
+		return options;
+	}
+
+	private static String value(Map<String, String> values, String name, String defaultValue) {
+		var value = values.remove(name);
+		return value != null ? value : defaultValue;
+	}
+
+}
@@ -0,0 +1,48 @@
+package lab.bookstore.catalogservice.loadtest;
+
+import java.net.http.HttpRequest.BodyPublishers;
+import java.util.Random;
+
+/**
+ * Browsing interleaved with employees editing prices, adding books and removing the
+ * books they added, all with a signed access token.
+ */
+final class MixedWritesScenario implements Scenario {
+
+	private final Catalog catalog;
+	private int added;
+	private int removed;
+
+	MixedWritesScenario(Catalog catalog) {
+		this.catalog = catalog;
+	}
+
+	@Override
+	public boolean writes() {
+		return true;
+	}
+
+	@Override
+	public Request next(Random random) {
+		var dice = random.nextInt(100);
+		if (dice < 60) {
+			return new Request("details", catalog.get("/books/" + Catalog.isbn(random.nextInt(catalog.size()))).build());
+		}
+		if (dice < 80) {
+			return new Request("page", catalog.get("/books?limit=20&after=" + random.nextInt(catalog.size())).build());
+		}
+		if (dice < 95) {
+			var position = random.nextInt(catalog.size());
+			var price = 5 + random.nextInt(9500) / 100.0;
+			return new Request("edit", catalog.write("PUT", "/books/" + Catalog.isbn(position), "application/json",
+					BodyPublishers.ofString(Catalog.json(position, price))).build());
+		}
+		if (dice < 98 || removed == added) {
+			var position = catalog.size() + added++;
+			return new Request("add", catalog.write("POST", "/books", "application/json",
+					BodyPublishers.ofString(Catalog.json(position, 19.99))).build());
+		}
+		return new Request("remove", catalog.delete("/books/" + Catalog.isbn(catalog.size() + removed++)).build());
+	}
+
+}
@@ -0,0 +1,69 @@
+package lab.bookstore.catalogservice.loadtest;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends requests at a target rate regardless of how fast the service answers, as real
+ * clients do. Arrivals follow a Poisson process drawn from the scenario's seeded random.
+ * A request due while the service is still busy is sent anyway, up to a bound on
+ * requests in flight that only protects the load generator itself.
+ */
+final class OpenModelRunner {
+
+	private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(30);
+
+	private final HttpClient client;
+	private final int maxInFlight;
+	private final Semaphore inFlight;
+
+	OpenModelRunner(HttpClient client, int maxInFlight) {
+		this.client = client;
+		this.maxInFlight = maxInFlight;
+		this.inFlight = new Semaphore(maxInFlight);
+	}
+
+	/**
+	 * Runs the scenario for the given time, then waits for the requests still in flight,
+	 * and returns the time the arrivals spanned.
+	 */
+	Duration run(Scenario scenario, double rate, Duration duration, Random random, LatencyReport report)
+			throws InterruptedException {
+		var start = System.nanoTime();
+		var end = start + duration.toNanos();
+		var nextArrival = start;
+		while (nextArrival < end) {
+			var delay = nextArrival - System.nanoTime();
+			if (delay > 0) {
+				LockSupport.parkNanos(delay);
+				continue;
+			}
+			var request = scenario.next(random);
+			var due = nextArrival;
+			if (inFlight.tryAcquire()) {
+				client.sendAsync(request.request(), BodyHandlers.discarding()).whenComplete((response, failure) -> {
+					var latency = System.nanoTime() - due;
+					if (failure != null) {
+						report.recordFailure(request.operation(), latency);
+					} else {
+						report.record(request.operation(), latency, response.statusCode());
+					}
+					inFlight.release();
+				});
+			} else {
+				report.recordSkipped();
+			}
+			nextArrival += (long) (-Math.log(1 - random.nextDouble()) / rate * 1e9);
+		}
+		if (inFlight.tryAcquire(maxInFlight, DRAIN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+			inFlight.release(maxInFlight);
+		}
+		return Duration.ofNanos(end - start);
+	}
+
+}
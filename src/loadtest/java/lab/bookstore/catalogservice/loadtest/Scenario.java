@@ -0,0 +1,35 @@
+package lab.bookstore.catalogservice.loadtest;
+
+import java.net.http.HttpRequest;
+import java.util.Random;
+
+/**
+ * A mix of requests. The runner asks for the next request at each arrival, always from
+ * the same thread and with the same seeded random, so a scenario replays identically.
+ */
+interface Scenario {
+
+	/**
+	 * Whether the scenario sends authenticated writes, and so needs an access token.
+	 */
+	boolean writes();
+
+	Request next(Random random);
+
+	/**
+	 * A request to send, with the name of the operation its latency is recorded under.
+	 */
+	record Request(String operation, HttpRequest request) {
+	}
+
+	static Scenario of(String name, Catalog catalog) {
+		return switch (name) {
+			case "browse" -> new BrowseScenario(catalog);
+			case "isbn-storm" -> new IsbnStormScenario(catalog);
+			case "mixed" -> new MixedWritesScenario(catalog);
+			default -> throw new IllegalArgumentException(
+					"Unknown scenario " + name + ", expected browse, isbn-storm or mixed");
+		};
+	}
+
+}
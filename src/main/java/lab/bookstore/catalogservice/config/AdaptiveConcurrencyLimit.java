@@ -0,0 +1,83 @@
+package lab.bookstore.catalogservice.config;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A concurrency limit that adapts to the latency it observes, additive increase and
+ * multiplicative decrease: a request slower than the target, or failing, cuts the limit
+ * by a tenth, and a limit in use grows by one request per limit-worth of fast requests.
+ * Only requests started after the last cut can cut it again, so a burst of slow requests
+ * that were all in flight at once counts as a single signal rather than one per request.
+ * Requests beyond the limit are refused rather than queued, so they fail at once instead
+ * of waiting for a connection the pool will not hand out in time.
+ */
+class AdaptiveConcurrencyLimit {
+
+	private static final double BACKOFF_RATIO = 0.9;
+
+	private final int minLimit;
+	private final int maxLimit;
+	private final long latencyTargetNanos;
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private volatile double limit;
+	private long lastBackoffNanos = System.nanoTime();
+
+	AdaptiveConcurrencyLimit(AdmissionProperties.Limit properties) {
+		this.minLimit = properties.getMinLimit();
+		this.maxLimit = properties.getMaxLimit();
+		this.latencyTargetNanos = properties.getLatencyTarget().toNanos();
+		this.limit = Math.min(Math.max(properties.getInitialLimit(), minLimit), maxLimit);
+	}
+
+	/**
+	 * Admits a request if fewer than the limit are in flight; an admitted request must be
+	 * {@linkplain #release released}.
+	 */
+	boolean tryAcquire() {
+		while (true) {
+			var current = inFlight.get();
+			if (current >= (int) limit) {
+				return false;
+			}
+			if (inFlight.compareAndSet(current, current + 1)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Releases a request admitted at {@code startNanos}, on the {@link System#nanoTime()}
+	 * clock, and adapts the limit to how it went.
+	 */
+	void release(long startNanos, long latencyNanos, boolean failed) {
+		var inFlightBefore = inFlight.getAndDecrement();
+		synchronized (this) {
+			if (failed || latencyNanos > latencyTargetNanos) {
+				if (startNanos - lastBackoffNanos >= 0) {
+					limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+					lastBackoffNanos = System.nanoTime();
+				}
+			} else if (inFlightBefore * 2 >= limit) {
+				limit = Math.min(maxLimit, limit + 1 / limit);
+			}
+		}
+	}
+
+	/**
+	 * Releases a request without adapting the limit, for requests whose latency says
+	 * nothing about how loaded the service is, such as streamed responses paced by the
+	 * client or bulk requests whose duration grows with their size.
+	 */
+	void release() {
+		inFlight.decrementAndGet();
+	}
+
+	int getLimit() {
+		return (int) limit;
+	}
+
+	int getInFlight() {
+		return inFlight.get();
+	}
+
+}
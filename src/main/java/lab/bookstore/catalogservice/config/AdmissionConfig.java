@@ -0,0 +1,30 @@
+package lab.bookstore.catalogservice.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+@ConditionalOnWebApplication(type = Type.SERVLET)
+@ConditionalOnProperty(prefix = "line.admission", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionConfig {
+
+	/**
+	 * Sheds load after the request is observed for metrics, so rejected requests show up
+	 * in {@code http.server.requests}, but before authentication and any other work.
+	 */
+	@Bean
+	FilterRegistrationBean<AdmissionControlFilter> admissionControlFilter(AdmissionProperties properties,
+			MeterRegistry meterRegistry) {
+		var registration = new FilterRegistrationBean<>(new AdmissionControlFilter(properties, meterRegistry));
+		registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+		return registration;
+	}
+
+}
@@ -0,0 +1,127 @@
+package lab.bookstore.catalogservice.config;
+
+import java.io.IOException;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Admits book requests under an {@link AdaptiveConcurrencyLimit}, one for reads and one
+ * for writes, and answers the others with 503 and {@code Retry-After} straight away.
+ * Actuator endpoints are never shed, so probes keep answering under load. Streamed
+ * responses hold their slot until they complete but are left out of the latency the
+ * limit adapts to, since it is the client that sets their pace; so are bulk imports and
+ * deletes, which take as long as their number of books.
+ * <p>
+ * Publishes {@code catalog.admission.limit}, {@code catalog.admission.in.flight} and
+ * {@code catalog.admission.rejected}, tagged with the class of request.
+ */
+class AdmissionControlFilter extends OncePerRequestFilter {
+
+	private final RequestClass reads;
+	private final RequestClass writes;
+	private final String retryAfterSeconds;
+
+	AdmissionControlFilter(AdmissionProperties properties, MeterRegistry meterRegistry) {
+		this.reads = new RequestClass("reads", new AdaptiveConcurrencyLimit(properties.getReads()), meterRegistry);
+		this.writes = new RequestClass("writes", new AdaptiveConcurrencyLimit(properties.getWrites()), meterRegistry);
+		this.retryAfterSeconds = String.valueOf(Math.max(1, properties.getRetryAfter().toSeconds()));
+	}
+
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		return !request.getRequestURI().startsWith(request.getContextPath() + "/books");
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		var method = request.getMethod();
+		var requestClass = "GET".equals(method) || "HEAD".equals(method) ? reads : writes;
+		if (!requestClass.limit.tryAcquire()) {
+			requestClass.rejected.increment();
+			response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+			response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+			return;
+		}
+		var start = System.nanoTime();
+		var failed = true;
+		try {
+			filterChain.doFilter(request, response);
+			failed = response.getStatus() >= 500;
+		} finally {
+			if (request.isAsyncStarted()) {
+				request.getAsyncContext().addListener(new ReleaseOnComplete(requestClass.limit));
+			} else if (isBulk(request)) {
+				requestClass.limit.release();
+			} else {
+				requestClass.limit.release(start, System.nanoTime() - start, failed);
+			}
+		}
+	}
+
+	private static boolean isBulk(HttpServletRequest request) {
+		var path = request.getRequestURI().substring(request.getContextPath().length());
+		return switch (request.getMethod()) {
+			case "POST" -> path.equals("/books/import");
+			case "DELETE" -> path.equals("/books");
+			default -> false;
+		};
+	}
+
+	private static final class RequestClass {
+
+		private final AdaptiveConcurrencyLimit limit;
+		private final Counter rejected;
+
+		RequestClass(String name, AdaptiveConcurrencyLimit limit, MeterRegistry meterRegistry) {
+			this.limit = limit;
+			this.rejected = Counter.builder("catalog.admission.rejected")
+					.description("Book requests turned away with 503 because their class was at its concurrency limit")
+					.tag("class", name)
+					.register(meterRegistry);
+			Gauge.builder("catalog.admission.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+					.description("Concurrent book requests currently admitted at most")
+					.tag("class", name)
+					.register(meterRegistry);
+			Gauge.builder("catalog.admission.in.flight", limit, AdaptiveConcurrencyLimit::getInFlight)
+					.description("Book requests admitted and not yet completed")
+					.tag("class", name)
+					.register(meterRegistry);
+		}
+
+	}
+
+	private record ReleaseOnComplete(AdaptiveConcurrencyLimit limit) implements AsyncListener {
+
+		@Override
+		public void onComplete(AsyncEvent event) {
+			limit.release();
+		}
+
+		@Override
+		public void onTimeout(AsyncEvent event) {
+		}
+
+		@Override
+		public void onError(AsyncEvent event) {
+		}
+
+		@Override
+		public void onStartAsync(AsyncEvent event) {
+		}
+
+	}
+
+}
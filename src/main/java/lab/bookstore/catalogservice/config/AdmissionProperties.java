@@ -0,0 +1,130 @@
+package lab.bookstore.catalogservice.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "line.admission")
+public class AdmissionProperties {
+
+	/**
+	 * Whether book requests beyond the adaptive concurrency limits are rejected.
+	 */
+	private boolean enabled = true;
+
+	/**
+	 * How long rejected clients are told to wait before trying again.
+	 */
+	private Duration retryAfter = Duration.ofSeconds(1);
+
+	/**
+	 * Limit of concurrent GET and HEAD requests.
+	 */
+	private Limit reads = new Limit(20, 2, 50, Duration.ofMillis(250));
+
+	/**
+	 * Limit of concurrent requests that write.
+	 */
+	private Limit writes = new Limit(5, 1, 20, Duration.ofSeconds(1));
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public Duration getRetryAfter() {
+		return retryAfter;
+	}
+
+	public void setRetryAfter(Duration retryAfter) {
+		this.retryAfter = retryAfter;
+	}
+
+	public Limit getReads() {
+		return reads;
+	}
+
+	public void setReads(Limit reads) {
+		this.reads = reads;
+	}
+
+	public Limit getWrites() {
+		return writes;
+	}
+
+	public void setWrites(Limit writes) {
+		this.writes = writes;
+	}
+
+	public static class Limit {
+
+		/**
+		 * Concurrent requests let through before any latency has been observed.
+		 */
+		private int initialLimit;
+
+		/**
+		 * The limit never drops below this, so that the service keeps probing.
+		 */
+		private int minLimit;
+
+		/**
+		 * The limit never grows beyond this; keep it within the server's threads.
+		 */
+		private int maxLimit;
+
+		/**
+		 * Requests slower than this, like those failing with a server error, are taken as
+		 * a sign of congestion, such as requests queueing for a pooled connection, and
+		 * lower the limit.
+		 */
+		private Duration latencyTarget;
+
+		public Limit() {
+		}
+
+		Limit(int initialLimit, int minLimit, int maxLimit, Duration latencyTarget) {
+			this.initialLimit = initialLimit;
+			this.minLimit = minLimit;
+			this.maxLimit = maxLimit;
+			this.latencyTarget = latencyTarget;
+		}
+
+		public int getInitialLimit() {
+			return initialLimit;
+		}
+
+		public void setInitialLimit(int initialLimit) {
+			this.initialLimit = initialLimit;
+		}
+
+		public int getMinLimit() {
+			return minLimit;
+		}
+
+		public void setMinLimit(int minLimit) {
+			this.minLimit = minLimit;
+		}
+
+		public int getMaxLimit() {
+			return maxLimit;
+		}
+
+		public void setMaxLimit(int maxLimit) {
+			this.maxLimit = maxLimit;
+		}
+
+		public Duration getLatencyTarget() {
+			return latencyTarget;
+		}
+
+		public void setLatencyTarget(Duration latencyTarget) {
+			this.latencyTarget = latencyTarget;
+		}
+
+	}
+
+}
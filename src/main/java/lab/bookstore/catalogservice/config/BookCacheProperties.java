@@ -0,0 +1,51 @@
+package lab.bookstore.catalogservice.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@ConfigurationProperties(prefix = "line.book-cache")
+public class BookCacheProperties {
+
+	/**
+	 * Maximum number of books kept in the ISBN lookup cache.
+	 */
+	private long maximumSize = 10_000;
+
+	/**
+	 * How long a cached book is served before it is reloaded, which bounds how stale a
+	 * replica can be after another replica changed the book.
+	 */
+	private Duration timeToLive = Duration.ofSeconds(60);
+
+	/**
+	 * Memory given to serialized book and page responses, plain and gzipped.
+	 */
+	private DataSize responseCacheSize = DataSize.ofMegabytes(32);
+
+	public long getMaximumSize() {
+		return maximumSize;
+	}
+
+	public void setMaximumSize(long maximumSize) {
+		this.maximumSize = maximumSize;
+	}
+
+	public Duration getTimeToLive() {
+		return timeToLive;
+	}
+
+	public void setTimeToLive(Duration timeToLive) {
+		this.timeToLive = timeToLive;
+	}
+
+	public DataSize getResponseCacheSize() {
+		return responseCacheSize;
+	}
+
+	public void setResponseCacheSize(DataSize responseCacheSize) {
+		this.responseCacheSize = responseCacheSize;
+	}
+
+}
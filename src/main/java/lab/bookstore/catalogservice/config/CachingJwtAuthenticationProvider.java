@@ -0,0 +1,133 @@
+package lab.bookstore.catalogservice.config;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HexFormat;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.server.resource.InvalidBearerTokenException;
+import org.springframework.security.oauth2.server.resource.authentication.BearerTokenAuthenticationToken;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Authenticates bearer tokens like {@code JwtAuthenticationProvider}, but remembers the
+ * tokens it verified, keyed by their SHA-256 hash, until they expire or for
+ * {@link JwtCacheProperties#getMaximumTimeToLive()}, whichever comes first. Clients that
+ * reuse one token for many calls then pay for the signature check and the claim
+ * conversion once.
+ * <p>
+ * Verification is timed as {@code catalog.jwt.decode}; hits and misses are published
+ * as the {@code jwt-authentications} cache. Rejected tokens are never remembered.
+ */
+public class CachingJwtAuthenticationProvider implements AuthenticationProvider {
+
+	private final JwtDecoder jwtDecoder;
+	private final Converter<Jwt, ? extends AbstractAuthenticationToken> jwtAuthenticationConverter;
+	private final Duration maximumTimeToLive;
+	private final Clock clock;
+	private final Cache<String, JwtAuthenticationToken> cache;
+	private final Timer decodeTimer;
+
+	public CachingJwtAuthenticationProvider(JwtDecoder jwtDecoder,
+			Converter<Jwt, ? extends AbstractAuthenticationToken> jwtAuthenticationConverter,
+			JwtCacheProperties properties, MeterRegistry meterRegistry) {
+		this(jwtDecoder, jwtAuthenticationConverter, properties, meterRegistry, Clock.systemUTC());
+	}
+
+	CachingJwtAuthenticationProvider(JwtDecoder jwtDecoder,
+			Converter<Jwt, ? extends AbstractAuthenticationToken> jwtAuthenticationConverter,
+			JwtCacheProperties properties, MeterRegistry meterRegistry, Clock clock) {
+		this.jwtDecoder = jwtDecoder;
+		this.jwtAuthenticationConverter = jwtAuthenticationConverter;
+		this.maximumTimeToLive = properties.getMaximumTimeToLive();
+		this.clock = clock;
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(properties.getMaximumSize())
+				.expireAfter(Expiry.creating((String key, JwtAuthenticationToken authentication) ->
+						timeToLive(authentication.getToken())))
+				.recordStats()
+				.build();
+		this.decodeTimer = Timer.builder("catalog.jwt.decode")
+				.description("Time spent verifying bearer tokens and converting their claims")
+				.register(meterRegistry);
+		CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwt-authentications");
+	}
+
+	@Override
+	public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+		var token = ((BearerTokenAuthenticationToken) authentication).getToken();
+		var key = hash(token);
+		var cached = cache.getIfPresent(key);
+		if (cached == null) {
+			cached = decodeTimer.record(() -> verify(token));
+			if (cached == null) {
+				return null;
+			}
+			if (timeToLive(cached.getToken()).isPositive()) {
+				cache.put(key, cached);
+			}
+		}
+		// A fresh token per request: the filter chain sets request details on the result
+		return new JwtAuthenticationToken(cached.getToken(), cached.getAuthorities(), cached.getName());
+	}
+
+	@Override
+	public boolean supports(Class<?> authentication) {
+		return BearerTokenAuthenticationToken.class.isAssignableFrom(authentication);
+	}
+
+	private JwtAuthenticationToken verify(String token) {
+		Jwt jwt;
+		try {
+			jwt = jwtDecoder.decode(token);
+		} catch (BadJwtException ex) {
+			throw new InvalidBearerTokenException(ex.getMessage(), ex);
+		} catch (JwtException ex) {
+			throw new AuthenticationServiceException(ex.getMessage(), ex);
+		}
+		var converted = jwtAuthenticationConverter.convert(jwt);
+		if (converted == null) {
+			return null;
+		}
+		return new JwtAuthenticationToken(jwt, converted.getAuthorities(), converted.getName());
+	}
+
+	private Duration timeToLive(Jwt jwt) {
+		var expiresAt = jwt.getExpiresAt();
+		if (expiresAt == null) {
+			return maximumTimeToLive;
+		}
+		var untilExpiry = Duration.between(clock.instant(), expiresAt);
+		return untilExpiry.compareTo(maximumTimeToLive) < 0 ? untilExpiry : maximumTimeToLive;
+	}
+
+	private static String hash(String token) {
+		try {
+			var digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+			return HexFormat.of().formatHex(digest);
+		} catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException("SHA-256 is not available", ex);
+		}
+	}
+
+}
@@ -0,0 +1,45 @@
+package lab.bookstore.catalogservice.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Times every public {@code BookService} method as {@code catalog.operations}, tagged with
+ * the operation and the exception it ended with, and exposes the operation to the
+ * metrics recorded while it runs.
+ */
+@Aspect
+public class CatalogMetricsAspect {
+
+	private final MeterRegistry meterRegistry;
+
+	public CatalogMetricsAspect(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+
+	@Around("execution(public * lab.bookstore.catalogservice.service.BookService.*(..))")
+	public Object timeOperation(ProceedingJoinPoint joinPoint) throws Throwable {
+		var operation = joinPoint.getSignature().getName();
+		var previous = CatalogOperation.enter(operation);
+		var sample = Timer.start(meterRegistry);
+		var exception = "none";
+		try {
+			return joinPoint.proceed();
+		} catch (Throwable ex) {
+			exception = ex.getClass().getSimpleName();
+			throw ex;
+		} finally {
+			sample.stop(Timer.builder("catalog.operations")
+					.description("Time spent in catalog operations")
+					.tag("operation", operation)
+					.tag("exception", exception)
+					.register(meterRegistry));
+			CatalogOperation.exit(previous);
+		}
+	}
+
+}
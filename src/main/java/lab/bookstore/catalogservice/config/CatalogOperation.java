@@ -0,0 +1,35 @@
+package lab.bookstore.catalogservice.config;
+
+/**
+ * Holds the name of the catalog operation running on the current thread, so metrics
+ * recorded deep below it, such as connection pool waits, can be tagged with it.
+ */
+public final class CatalogOperation {
+
+	static final String NONE = "none";
+
+	private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+	private CatalogOperation() {
+	}
+
+	public static String current() {
+		var operation = CURRENT.get();
+		return operation != null ? operation : NONE;
+	}
+
+	static String enter(String operation) {
+		var previous = CURRENT.get();
+		CURRENT.set(operation);
+		return previous;
+	}
+
+	static void exit(String previous) {
+		if (previous != null) {
+			CURRENT.set(previous);
+		} else {
+			CURRENT.remove();
+		}
+	}
+
+}
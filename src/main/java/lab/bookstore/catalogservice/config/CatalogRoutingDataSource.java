@@ -0,0 +1,37 @@
+package lab.bookstore.catalogservice.config;
+
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends read-only transactions to the replica and everything else to the primary.
+ * <p>
+ * It must be wrapped in a {@code LazyConnectionDataSourceProxy}: the transaction manager
+ * asks for a connection before it marks the transaction read-only, and only the lazy
+ * proxy defers the lookup until the first statement.
+ */
+class CatalogRoutingDataSource extends AbstractRoutingDataSource {
+
+	enum Target {
+		PRIMARY, REPLICA
+	}
+
+	CatalogRoutingDataSource(DataSource primary, DataSource replica) {
+		setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+		setDefaultTargetDataSource(primary);
+		afterPropertiesSet();
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !ReadConsistency.isStrong()) {
+			return Target.REPLICA;
+		}
+		return Target.PRIMARY;
+	}
+
+}
@@ -0,0 +1,33 @@
+package lab.bookstore.catalogservice.config;
+
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+import lab.bookstore.catalogservice.domain.Book;
+import lab.bookstore.catalogservice.domain.BookChange;
+import lab.bookstore.catalogservice.service.BookChangePage;
+import lab.bookstore.catalogservice.service.BookImportResult;
+import lab.bookstore.catalogservice.service.BookLookupResult;
+import lab.bookstore.catalogservice.service.CatalogSummary;
+
+/**
+ * What a native image of the service needs beyond what Spring infers from the beans.
+ * Books are read and written by Jackson outside of controller signatures (imports,
+ * streams and cached responses), and Logback creates the appender named in
+ * {@code logback-spring.xml} by reflection. Flyway's migrations are registered by its
+ * own auto-configuration hints.
+ */
+class CatalogRuntimeHints implements RuntimeHintsRegistrar {
+
+	@Override
+	public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+		new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(), Book.class,
+				BookChange.class, BookChangePage.class, BookImportResult.class, BookLookupResult.class,
+				CatalogSummary.class);
+		hints.reflection().registerType(CountingAsyncAppender.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS,
+				MemberCategory.INVOKE_PUBLIC_METHODS);
+	}
+
+}
@@ -0,0 +1,44 @@
+package lab.bookstore.catalogservice.config;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+/**
+ * An {@link AsyncAppender} that counts the events it drops: INFO and lower events
+ * discarded once the queue is nearly full, and, with {@code neverBlock}, events that
+ * found the queue full. The second count is taken just before the event is offered, so
+ * it can miss an event that fills the last slot concurrently.
+ */
+public class CountingAsyncAppender extends AsyncAppender {
+
+	private final LongAdder discarded = new LongAdder();
+	private final LongAdder queueFull = new LongAdder();
+
+	@Override
+	protected boolean isDiscardable(ILoggingEvent event) {
+		var discardable = super.isDiscardable(event);
+		if (discardable) {
+			discarded.increment();
+		}
+		return discardable;
+	}
+
+	@Override
+	protected void preprocess(ILoggingEvent event) {
+		super.preprocess(event);
+		if (isNeverBlock() && getRemainingCapacity() == 0) {
+			queueFull.increment();
+		}
+	}
+
+	public long getDiscarded() {
+		return discarded.sum();
+	}
+
+	public long getQueueFull() {
+		return queueFull.sum();
+	}
+
+}
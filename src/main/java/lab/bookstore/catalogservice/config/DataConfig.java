@@ -5,7 +5,9 @@ import java.util.Optional;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.domain.AuditorAware;
+import org.springframework.data.jdbc.core.dialect.JdbcPostgresDialect;
 import org.springframework.data.jdbc.repository.config.EnableJdbcAuditing;
+import org.springframework.data.relational.core.dialect.Dialect;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -20,5 +22,14 @@ public class DataConfig {
 				.filter(Authentication::isAuthenticated)
 				.map(Authentication::getName);
 	}
+
+	/**
+	 * The catalog always lives in PostgreSQL; naming the dialect saves asking the database
+	 * for it at startup, and lets the context start while the database is unreachable.
+	 */
+	@Bean
+	Dialect jdbcDialect() {
+		return JdbcPostgresDialect.INSTANCE;
+	}
 	
 }
@@ -0,0 +1,37 @@
+package lab.bookstore.catalogservice.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "line.jwt-cache")
+public class JwtCacheProperties {
+
+	/**
+	 * Maximum number of verified bearer tokens remembered.
+	 */
+	private long maximumSize = 10_000;
+
+	/**
+	 * Longest time a verified token is trusted without checking it again, whatever its
+	 * expiry, so that a rotated signing key takes effect within this time.
+	 */
+	private Duration maximumTimeToLive = Duration.ofMinutes(5);
+
+	public long getMaximumSize() {
+		return maximumSize;
+	}
+
+	public void setMaximumSize(long maximumSize) {
+		this.maximumSize = maximumSize;
+	}
+
+	public Duration getMaximumTimeToLive() {
+		return maximumTimeToLive;
+	}
+
+	public void setMaximumTimeToLive(Duration maximumTimeToLive) {
+		this.maximumTimeToLive = maximumTimeToLive;
+	}
+
+}
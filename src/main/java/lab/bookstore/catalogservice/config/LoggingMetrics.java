@@ -0,0 +1,67 @@
+package lab.bookstore.catalogservice.config;
+
+import java.util.function.ToDoubleFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+import ch.qos.logback.classic.LoggerContext;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Installs the {@link RequestLogSamplingFilter} in Logback and publishes the events
+ * dropped on the way to the log as {@code catalog.logging.events.dropped}, tagged with
+ * the reason, along with the depth of the asynchronous appender's queue.
+ */
+public class LoggingMetrics implements MeterBinder, DisposableBean {
+
+	static final String ASYNC_APPENDER = "ASYNC";
+
+	private final RequestLogSamplingFilter samplingFilter;
+	private final LoggerContext loggerContext;
+
+	public LoggingMetrics(RequestLogSamplingFilter samplingFilter) {
+		this.samplingFilter = samplingFilter;
+		this.loggerContext = LoggerFactory.getILoggerFactory() instanceof LoggerContext context ? context : null;
+		if (loggerContext != null) {
+			samplingFilter.setContext(loggerContext);
+			samplingFilter.start();
+			loggerContext.addTurboFilter(samplingFilter);
+		}
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		dropped(registry, "sampled", samplingFilter, RequestLogSamplingFilter::getSampledOut);
+		dropped(registry, "rate_limited", samplingFilter, RequestLogSamplingFilter::getRateLimited);
+		if (loggerContext != null && loggerContext.getLogger(Logger.ROOT_LOGGER_NAME)
+				.getAppender(ASYNC_APPENDER) instanceof CountingAsyncAppender appender) {
+			dropped(registry, "discarded", appender, CountingAsyncAppender::getDiscarded);
+			dropped(registry, "queue_full", appender, CountingAsyncAppender::getQueueFull);
+			Gauge.builder("catalog.logging.queue.size", appender, CountingAsyncAppender::getNumberOfElementsInQueue)
+					.description("Log events waiting for the asynchronous appender")
+					.register(registry);
+		}
+	}
+
+	@Override
+	public void destroy() {
+		if (loggerContext != null) {
+			loggerContext.getTurboFilterList().remove(samplingFilter);
+			samplingFilter.stop();
+		}
+	}
+
+	private static <T> void dropped(MeterRegistry registry, String reason, T source,
+			ToDoubleFunction<T> count) {
+		FunctionCounter.builder("catalog.logging.events.dropped", source, count)
+				.description("Log events dropped before reaching the log")
+				.tag("reason", reason)
+				.register(registry);
+	}
+
+}
@@ -0,0 +1,47 @@
+package lab.bookstore.catalogservice.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+public class MetricsConfig {
+
+	@Bean
+	CatalogMetricsAspect catalogMetricsAspect(MeterRegistry meterRegistry) {
+		return new CatalogMetricsAspect(meterRegistry);
+	}
+
+	@Bean
+	LoggingMetrics loggingMetrics(RequestLogProperties requestLogProperties) {
+		return new LoggingMetrics(new RequestLogSamplingFilter(requestLogProperties));
+	}
+
+	/**
+	 * Installs the operation-tagging tracker before the pool starts; Spring Boot then
+	 * leaves the pool's metrics tracker alone.
+	 */
+	@Bean
+	static BeanPostProcessor hikariMetricsTrackerPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+		return new BeanPostProcessor() {
+
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if (bean instanceof HikariDataSource dataSource && dataSource.getMetricsTrackerFactory() == null
+						&& dataSource.getMetricRegistry() == null) {
+					dataSource.setMetricsTrackerFactory(
+							(poolName, poolStats) -> new OperationTaggingMetricsTrackerFactory(meterRegistry.getObject())
+									.create(poolName, poolStats));
+				}
+				return bean;
+			}
+
+		};
+	}
+
+}
@@ -0,0 +1,79 @@
+package lab.bookstore.catalogservice.config;
+
+import java.util.concurrent.TimeUnit;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Keeps the standard {@code hikaricp.*} pool metrics and additionally records connection
+ * waits, usage and timeouts per {@link CatalogOperation}. Hikari reports these on the
+ * thread that borrows and returns the connection, which is the thread running the
+ * operation.
+ */
+class OperationTaggingMetricsTrackerFactory implements MetricsTrackerFactory {
+
+	private final MeterRegistry meterRegistry;
+
+	OperationTaggingMetricsTrackerFactory(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+
+	@Override
+	public IMetricsTracker create(String poolName, PoolStats poolStats) {
+		var delegate = new MicrometerMetricsTrackerFactory(meterRegistry).create(poolName, poolStats);
+		return new IMetricsTracker() {
+
+			@Override
+			public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+				delegate.recordConnectionCreatedMillis(connectionCreatedMillis);
+			}
+
+			@Override
+			public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+				delegate.recordConnectionAcquiredNanos(elapsedAcquiredNanos);
+				timer("catalog.db.connection.acquire", "Time spent waiting for a pooled connection", poolName)
+						.record(elapsedAcquiredNanos, TimeUnit.NANOSECONDS);
+			}
+
+			@Override
+			public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+				delegate.recordConnectionUsageMillis(elapsedBorrowedMillis);
+				timer("catalog.db.connection.usage", "Time a pooled connection was held", poolName)
+						.record(elapsedBorrowedMillis, TimeUnit.MILLISECONDS);
+			}
+
+			@Override
+			public void recordConnectionTimeout() {
+				delegate.recordConnectionTimeout();
+				Counter.builder("catalog.db.connection.timeout")
+						.description("Connection requests that timed out waiting for the pool")
+						.tag("pool", poolName)
+						.tag("operation", CatalogOperation.current())
+						.register(meterRegistry)
+						.increment();
+			}
+
+			@Override
+			public void close() {
+				delegate.close();
+			}
+
+		};
+	}
+
+	private Timer timer(String name, String description, String poolName) {
+		return Timer.builder(name)
+				.description(description)
+				.tag("pool", poolName)
+				.tag("operation", CatalogOperation.current())
+				.register(meterRegistry);
+	}
+
+}
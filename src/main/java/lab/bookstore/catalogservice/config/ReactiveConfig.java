@@ -0,0 +1,39 @@
+package lab.bookstore.catalogservice.config;
+
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.ReactiveAuditorAware;
+import org.springframework.data.r2dbc.config.EnableR2dbcAuditing;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+
+/**
+ * Runs the catalog on WebFlux and R2DBC. The JDBC data source stays around for Flyway,
+ * which has no R2DBC support, and for the test data loader.
+ */
+@Configuration
+@Profile("reactive")
+@EnableR2dbcAuditing(auditorAwareRef = "reactiveAuditorAware")
+public class ReactiveConfig {
+
+	@Bean
+	ReactiveAuditorAware<String> reactiveAuditorAware() {
+		return () -> ReactiveSecurityContextHolder.getContext()
+				.map(SecurityContext::getAuthentication)
+				.filter(Authentication::isAuthenticated)
+				.map(Authentication::getName);
+	}
+
+	/**
+	 * Prefers Netty's event loop over Tomcat, which Spring Boot would otherwise pick
+	 * since the servlet stack is on the classpath too.
+	 */
+	@Bean
+	NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+		return new NettyReactiveWebServerFactory();
+	}
+
+}
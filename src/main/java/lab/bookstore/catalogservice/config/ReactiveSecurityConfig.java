@@ -0,0 +1,36 @@
+package lab.bookstore.catalogservice.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.oauth2.server.resource.authentication.ReactiveJwtAuthenticationConverterAdapter;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.savedrequest.NoOpServerRequestCache;
+
+/**
+ * The rules of {@link SecurityConfig} for the {@code reactive} profile.
+ */
+@EnableWebFluxSecurity
+@Configuration
+@Profile("reactive")
+public class ReactiveSecurityConfig {
+
+	@Bean
+	SecurityWebFilterChain springSecurityFilterChain(ServerHttpSecurity http) {
+		return http
+				.authorizeExchange(exchange -> exchange
+						.pathMatchers("/actuator/**").permitAll()
+						.pathMatchers(HttpMethod.GET, "/", "/port1", "/port2", "/books/**").permitAll()
+						.anyExchange().hasRole("employee")
+				)
+				.oauth2ResourceServer(resourceServer -> resourceServer.jwt(jwt -> jwt.jwtAuthenticationConverter(
+						new ReactiveJwtAuthenticationConverterAdapter(SecurityConfig.jwtAuthenticationConverter()))))
+				.requestCache(requestCache -> requestCache.requestCache(NoOpServerRequestCache.getInstance()))
+				.csrf(ServerHttpSecurity.CsrfSpec::disable)
+				.build();
+	}
+
+}
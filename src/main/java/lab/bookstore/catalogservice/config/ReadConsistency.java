@@ -0,0 +1,55 @@
+package lab.bookstore.catalogservice.config;
+
+import java.util.function.Supplier;
+
+/**
+ * Marks the current thread as needing strong reads, so read-only transactions go to
+ * the primary instead of a replica that may not have caught up with the caller's own
+ * writes yet.
+ */
+public final class ReadConsistency {
+
+	/**
+	 * Request header with which a client asks for strong reads, typically right after it
+	 * changed a book it is about to read back.
+	 */
+	public static final String HEADER = "X-Read-Consistency";
+
+	static final String STRONG = "strong";
+
+	private static final ThreadLocal<Boolean> STRONG_READS = new ThreadLocal<>();
+
+	private ReadConsistency() {
+	}
+
+	public static boolean isStrong() {
+		return Boolean.TRUE.equals(STRONG_READS.get());
+	}
+
+	/**
+	 * Runs the given reads with strong consistency, then restores the consistency the
+	 * thread had before.
+	 */
+	public static <T> T strongly(Supplier<T> reads) {
+		var previous = STRONG_READS.get();
+		requireStrong();
+		try {
+			return reads.get();
+		} finally {
+			if (previous == null) {
+				reset();
+			} else {
+				STRONG_READS.set(previous);
+			}
+		}
+	}
+
+	static void requireStrong() {
+		STRONG_READS.set(Boolean.TRUE);
+	}
+
+	static void reset() {
+		STRONG_READS.remove();
+	}
+
+}
@@ -0,0 +1,33 @@
+package lab.bookstore.catalogservice.config;
+
+import java.io.IOException;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Turns the {@value ReadConsistency#HEADER} request header into strong reads for the
+ * thread serving the request.
+ */
+class ReadConsistencyFilter extends OncePerRequestFilter {
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		if (!ReadConsistency.STRONG.equalsIgnoreCase(request.getHeader(ReadConsistency.HEADER))) {
+			filterChain.doFilter(request, response);
+			return;
+		}
+		ReadConsistency.requireStrong();
+		try {
+			filterChain.doFilter(request, response);
+		} finally {
+			ReadConsistency.reset();
+		}
+	}
+
+}
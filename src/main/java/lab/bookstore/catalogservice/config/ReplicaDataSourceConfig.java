@@ -0,0 +1,60 @@
+package lab.bookstore.catalogservice.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Splits reads from writes when a replica is configured under
+ * {@code line.datasource.replica}, which takes the properties of a Hikari pool
+ * ({@code jdbc-url}, {@code username}, {@code password}, {@code maximum-pool-size}...).
+ * <p>
+ * The primary keeps its {@code spring.datasource} settings. Each pool is a bean of its
+ * own, named {@code primary} and {@code replica}, so it gets its own pool metrics.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "line.datasource.replica", name = "jdbc-url")
+public class ReplicaDataSourceConfig {
+
+	@Bean
+	@ConfigurationProperties("spring.datasource.hikari")
+	HikariDataSource primaryDataSource(DataSourceProperties properties) {
+		var dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+		if (!StringUtils.hasText(dataSource.getPoolName())) {
+			dataSource.setPoolName("primary");
+		}
+		return dataSource;
+	}
+
+	@Bean
+	@ConfigurationProperties("line.datasource.replica")
+	HikariDataSource replicaDataSource() {
+		var dataSource = new HikariDataSource();
+		dataSource.setPoolName("replica");
+		dataSource.setReadOnly(true);
+		return dataSource;
+	}
+
+	@Bean
+	@Primary
+	DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+			@Qualifier("replicaDataSource") DataSource replica) {
+		return new LazyConnectionDataSourceProxy(new CatalogRoutingDataSource(primary, replica));
+	}
+
+	@Bean
+	ReadConsistencyFilter readConsistencyFilter() {
+		return new ReadConsistencyFilter();
+	}
+
+}
@@ -0,0 +1,83 @@
+package lab.bookstore.catalogservice.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "line.request-log")
+public class RequestLogProperties {
+
+	/**
+	 * Log events the asynchronous appender holds before it drops them; read by
+	 * {@code logback-spring.xml} at startup.
+	 */
+	private int queueSize = 8192;
+
+	/**
+	 * How INFO and lower events logged while serving GET and HEAD requests are let
+	 * through. Writes, warnings and errors are always logged.
+	 */
+	private Policy reads = new Policy();
+
+	/**
+	 * Policies for single read endpoints, keyed by method and route, such as
+	 * {@code "[GET /books/{isbn}]"}.
+	 */
+	private Map<String, Policy> endpoints = new LinkedHashMap<>();
+
+	public int getQueueSize() {
+		return queueSize;
+	}
+
+	public void setQueueSize(int queueSize) {
+		this.queueSize = queueSize;
+	}
+
+	public Policy getReads() {
+		return reads;
+	}
+
+	public void setReads(Policy reads) {
+		this.reads = reads;
+	}
+
+	public Map<String, Policy> getEndpoints() {
+		return endpoints;
+	}
+
+	public void setEndpoints(Map<String, Policy> endpoints) {
+		this.endpoints = endpoints;
+	}
+
+	public static class Policy {
+
+		/**
+		 * Fraction of requests whose events are logged, from 0 to 1.
+		 */
+		private double sampleRate = 1.0;
+
+		/**
+		 * Most requests logged per second after sampling; 0 for no limit.
+		 */
+		private int maxPerSecond;
+
+		public double getSampleRate() {
+			return sampleRate;
+		}
+
+		public void setSampleRate(double sampleRate) {
+			this.sampleRate = sampleRate;
+		}
+
+		public int getMaxPerSecond() {
+			return maxPerSecond;
+		}
+
+		public void setMaxPerSecond(int maxPerSecond) {
+			this.maxPerSecond = maxPerSecond;
+		}
+
+	}
+
+}
@@ -0,0 +1,110 @@
+package lab.bookstore.catalogservice.config;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Marker;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+
+/**
+ * Thins out the INFO and lower events that the web layer logs while serving reads, before
+ * Logback builds them. Requests to each read endpoint are sampled and then rate limited
+ * according to its {@link RequestLogProperties.Policy}; events logged while serving
+ * writes, and warnings and errors, always pass. The decision is taken at the first event
+ * of a request and kept in a request attribute, so a request is logged whole or not at
+ * all.
+ */
+public class RequestLogSamplingFilter extends TurboFilter {
+
+	private static final String WEB_LOGGERS = "lab.bookstore.catalogservice.web.";
+
+	private static final String DECISION_ATTRIBUTE = RequestLogSamplingFilter.class.getName() + ".DECISION";
+
+	private final RequestLogProperties properties;
+	private final Map<String, RateLimit> rateLimits = new ConcurrentHashMap<>();
+	private final LongAdder sampledOut = new LongAdder();
+	private final LongAdder rateLimited = new LongAdder();
+
+	public RequestLogSamplingFilter(RequestLogProperties properties) {
+		this.properties = properties;
+	}
+
+	@Override
+	public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params,
+			Throwable t) {
+		if (level == null || level.isGreaterOrEqual(Level.WARN) || !logger.getName().startsWith(WEB_LOGGERS)
+				|| !(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+			return FilterReply.NEUTRAL;
+		}
+		var request = attributes.getRequest();
+		var method = request.getMethod();
+		if (!"GET".equals(method) && !"HEAD".equals(method)) {
+			return FilterReply.NEUTRAL;
+		}
+		if (!(request.getAttribute(DECISION_ATTRIBUTE) instanceof Decision decision)) {
+			decision = decide(method + " " + request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE));
+			request.setAttribute(DECISION_ATTRIBUTE, decision);
+		}
+		if (decision == Decision.LOGGED) {
+			return FilterReply.NEUTRAL;
+		}
+		(decision == Decision.SAMPLED_OUT ? sampledOut : rateLimited).increment();
+		return FilterReply.DENY;
+	}
+
+	private Decision decide(String endpoint) {
+		var policy = properties.getEndpoints().getOrDefault(endpoint, properties.getReads());
+		if (policy.getSampleRate() < 1.0 && ThreadLocalRandom.current().nextDouble() >= policy.getSampleRate()) {
+			return Decision.SAMPLED_OUT;
+		}
+		if (policy.getMaxPerSecond() > 0
+				&& !rateLimits.computeIfAbsent(endpoint, key -> new RateLimit()).tryAcquire(policy.getMaxPerSecond())) {
+			return Decision.RATE_LIMITED;
+		}
+		return Decision.LOGGED;
+	}
+
+	public long getSampledOut() {
+		return sampledOut.sum();
+	}
+
+	public long getRateLimited() {
+		return rateLimited.sum();
+	}
+
+	private enum Decision {
+
+		LOGGED, SAMPLED_OUT, RATE_LIMITED
+
+	}
+
+	/**
+	 * Counts requests in the current one-second window. Only sampled requests get here,
+	 * once each, so the lock is rarely contended.
+	 */
+	private static final class RateLimit {
+
+		private long second;
+		private int count;
+
+		synchronized boolean tryAcquire(int maxPerSecond) {
+			var now = System.nanoTime() / 1_000_000_000L;
+			if (now != second) {
+				second = now;
+				count = 0;
+			}
+			return ++count <= maxPerSecond;
+		}
+
+	}
+
+}
@@ -1,30 +1,38 @@
 package lab.bookstore.catalogservice.config;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
-import org.springframework.security.config.annotation.web.configurers.oauth2.server.resource.OAuth2ResourceServerConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
 import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
 import org.springframework.security.web.SecurityFilterChain;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
 @EnableWebSecurity
 @Configuration
+@Profile("!reactive")
 public class SecurityConfig {
 
 	@Bean
-	SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+	SecurityFilterChain filterChain(HttpSecurity http, CachingJwtAuthenticationProvider jwtAuthenticationProvider)
+			throws Exception {
 		return http
 				.authorizeHttpRequests(authorize -> authorize
 						.requestMatchers("/actuator/**").permitAll()
 						.requestMatchers(HttpMethod.GET, "/", "/port1", "/port2", "/books/**").permitAll()
 						.anyRequest().hasRole("employee")
 				)
-				.oauth2ResourceServer(OAuth2ResourceServerConfigurer::jwt)
+				.oauth2ResourceServer(oauth2 -> oauth2
+						.jwt(jwt -> jwt.authenticationManager(new ProviderManager(jwtAuthenticationProvider))))
 				.sessionManagement(sessionManagement ->
 						sessionManagement.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
 				.csrf(AbstractHttpConfigurer::disable)
@@ -32,7 +40,18 @@ public class SecurityConfig {
 	}
 
 	@Bean
-	public JwtAuthenticationConverter jwtAuthenticationConverter() {
+	CachingJwtAuthenticationProvider jwtAuthenticationProvider(JwtDecoder jwtDecoder,
+			ObjectProvider<JwtCacheProperties> properties, MeterRegistry meterRegistry) {
+		return new CachingJwtAuthenticationProvider(jwtDecoder, jwtAuthenticationConverter(),
+				properties.getIfAvailable(JwtCacheProperties::new), meterRegistry);
+	}
+
+	/**
+	 * Maps the {@code roles} claim to authorities; static so that the reactive stack can
+	 * share it.
+	 */
+	@Bean
+	public static JwtAuthenticationConverter jwtAuthenticationConverter() {
 		var jwtGrantedAuthoritiesConverter = new JwtGrantedAuthoritiesConverter();
 		jwtGrantedAuthoritiesConverter.setAuthorityPrefix("ROLE_");
 		jwtGrantedAuthoritiesConverter.setAuthoritiesClaimName("roles");
@@ -0,0 +1,15 @@
+package lab.bookstore.catalogservice.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+/**
+ * Startup concerns that are not beans. A training run, such as the one recording the
+ * AppCDS archive, ends on {@code -Dspring.context.exit=onRefresh}, which Spring Framework
+ * handles itself.
+ */
+@Configuration(proxyBeanMethods = false)
+@ImportRuntimeHints(CatalogRuntimeHints.class)
+public class StartupConfig {
+
+}
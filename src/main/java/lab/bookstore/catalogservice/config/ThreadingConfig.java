@@ -0,0 +1,34 @@
+package lab.bookstore.catalogservice.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+public class ThreadingConfig {
+
+	@Bean
+	@ConditionalOnThreading(Threading.VIRTUAL)
+	VirtualThreadPinningMetrics virtualThreadPinningMetrics() {
+		return new VirtualThreadPinningMetrics(Duration.ofMillis(20));
+	}
+
+	/**
+	 * {@code @Async} methods, such as the test data loader, are handed off to the virtual
+	 * thread executor only in virtual mode. With platform threads they run on the calling
+	 * thread, in turn with the other {@code ApplicationReadyEvent} listeners such as the
+	 * aggregates rebuild.
+	 */
+	@Configuration(proxyBeanMethods = false)
+	@ConditionalOnThreading(Threading.VIRTUAL)
+	@EnableAsync
+	static class VirtualThreadAsyncConfig {
+	}
+
+}
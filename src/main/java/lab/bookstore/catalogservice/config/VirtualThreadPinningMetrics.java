@@ -0,0 +1,47 @@
+package lab.bookstore.catalogservice.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.DisposableBean;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jdk.jfr.consumer.RecordingStream;
+
+/**
+ * Records how often and for how long virtual threads stay pinned to their carrier thread,
+ * as reported by the {@code jdk.VirtualThreadPinned} JFR event. Pinning while waiting on
+ * JDBC I/O takes a carrier away from every other request, so this timer should stay
+ * close to zero.
+ */
+public class VirtualThreadPinningMetrics implements MeterBinder, DisposableBean {
+
+	private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+	private final Duration threshold;
+	private RecordingStream recordingStream;
+
+	public VirtualThreadPinningMetrics(Duration threshold) {
+		this.threshold = threshold;
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		var pinned = Timer.builder("jvm.threads.virtual.pinned")
+				.description("Time virtual threads spent pinned to their carrier thread")
+				.register(registry);
+		recordingStream = new RecordingStream();
+		recordingStream.enable(PINNED_EVENT).withThreshold(threshold);
+		recordingStream.onEvent(PINNED_EVENT, event -> pinned.record(event.getDuration()));
+		recordingStream.startAsync();
+	}
+
+	@Override
+	public void destroy() {
+		if (recordingStream != null) {
+			recordingStream.close();
+		}
+	}
+
+}
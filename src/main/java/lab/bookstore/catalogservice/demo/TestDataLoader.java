@@ -4,11 +4,13 @@ import java.util.List;
 
 import lab.bookstore.catalogservice.domain.Book;
 import lab.bookstore.catalogservice.repo.BookRepository;
+import lab.bookstore.catalogservice.service.CatalogAggregates;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.annotation.Profile;
 import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -17,13 +19,17 @@ public class TestDataLoader {
 
 	@Autowired
 	private BookRepository bookRepository;
+	@Autowired
+	private CatalogAggregates catalogAggregates;
 
+	@Async
 	@EventListener(ApplicationReadyEvent.class)
 	public void loadBookTestData() {
 		bookRepository.deleteAll();
 		var book1 = Book.of("1234567890", "Spring Boot", "Jim1", 100.0, "Gotop");
 		var book2 = Book.of("1234567891", "Spring Cloud", "Jim2", 200.0, "Gotop");
 		bookRepository.saveAll(List.of(book1, book2));
+		catalogAggregates.rebuild();
 	}
 
 }
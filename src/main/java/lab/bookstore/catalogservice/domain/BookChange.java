@@ -0,0 +1,27 @@
+package lab.bookstore.catalogservice.domain;
+
+import java.time.Instant;
+
+/**
+ * A change to the catalog: the latest state of a book that was added or updated, or
+ * the ISBN of a book that was deleted, with the time of the change.
+ */
+public record BookChange(Type type, String isbn, Instant changedDate, Book book) {
+
+	public enum Type {
+		UPSERT, DELETE
+	}
+
+	public static BookChange upsert(Book book) {
+		return new BookChange(Type.UPSERT, book.isbn(), book.lastModifiedDate(), book);
+	}
+
+	public static BookChange delete(String isbn, Instant deletedDate) {
+		return new BookChange(Type.DELETE, isbn, deletedDate, null);
+	}
+
+	public BookChangeCursor cursor() {
+		return new BookChangeCursor(changedDate, isbn);
+	}
+
+}
@@ -0,0 +1,35 @@
+package lab.bookstore.catalogservice.domain;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+
+/**
+ * Position in the feed of changes, ordered by time of change and then by ISBN. It is
+ * handed to clients as an opaque string so its layout can change without notice.
+ */
+public record BookChangeCursor(Instant changedDate, String isbn) {
+
+	public static final BookChangeCursor START = new BookChangeCursor(Instant.EPOCH, "");
+
+	public String encode() {
+		var micros = ChronoUnit.MICROS.between(Instant.EPOCH, changedDate);
+		return Base64.getUrlEncoder().withoutPadding()
+				.encodeToString((micros + ":" + isbn).getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * @throws IllegalArgumentException if the cursor was not produced by {@link #encode()}
+	 */
+	public static BookChangeCursor decode(String cursor) {
+		var decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+		var separator = decoded.indexOf(':');
+		if (separator < 0) {
+			throw new IllegalArgumentException("Malformed change cursor: " + cursor);
+		}
+		var micros = Long.parseLong(decoded.substring(0, separator));
+		return new BookChangeCursor(Instant.EPOCH.plus(micros, ChronoUnit.MICROS), decoded.substring(separator + 1));
+	}
+
+}
@@ -0,0 +1,107 @@
+package lab.bookstore.catalogservice.domain;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * A property of a {@link Book} that clients can ask for on its own, with the column it
+ * is read from.
+ */
+public enum BookField {
+
+	ID("id", "id", Book::id),
+	ISBN("isbn", "isbn", Book::isbn),
+	NAME("name", "name", Book::name),
+	AUTHOR("author", "author", Book::author),
+	PRICE("price", "price", Book::price),
+	PUBLISHER("publisher", "publisher", Book::publisher),
+	CREATED_DATE("createdDate", "created_date", Book::createdDate),
+	LAST_MODIFIED_DATE("lastModifiedDate", "last_modified_date", Book::lastModifiedDate),
+	CREATED_BY("createdBy", "created_by", Book::createdBy),
+	LAST_MODIFIED_BY("lastModifiedBy", "last_modified_by", Book::lastModifiedBy),
+	VERSION("version", "version", Book::version);
+
+	public static final Set<BookField> ALL = Collections.unmodifiableSet(EnumSet.allOf(BookField.class));
+
+	private final String property;
+	private final String column;
+	private final Function<Book, Object> accessor;
+
+	BookField(String property, String column, Function<Book, Object> accessor) {
+		this.property = property;
+		this.column = column;
+		this.accessor = accessor;
+	}
+
+	public String property() {
+		return property;
+	}
+
+	public String column() {
+		return column;
+	}
+
+	/**
+	 * Parses a comma-separated list of property names, such as {@code isbn,name,price}.
+	 *
+	 * @throws IllegalArgumentException if a name is not a book property, or none is given
+	 */
+	public static Set<BookField> parse(String fields) {
+		var parsed = EnumSet.noneOf(BookField.class);
+		for (var name : fields.split(",")) {
+			var trimmed = name.trim();
+			if (!trimmed.isEmpty()) {
+				parsed.add(ofProperty(trimmed));
+			}
+		}
+		if (parsed.isEmpty()) {
+			throw new IllegalArgumentException("No book fields were given");
+		}
+		return parsed;
+	}
+
+	private static BookField ofProperty(String property) {
+		for (var field : values()) {
+			if (field.property.equals(property)) {
+				return field;
+			}
+		}
+		throw new IllegalArgumentException("Books have no field " + property);
+	}
+
+	/**
+	 * Returns the given properties of the book, in declaration order and keyed by their
+	 * JSON names.
+	 */
+	public static Map<String, Object> project(Book book, Set<BookField> fields) {
+		var projection = new LinkedHashMap<String, Object>();
+		for (var field : fields) {
+			projection.put(field.property, field.accessor.apply(book));
+		}
+		return projection;
+	}
+
+	/**
+	 * Returns the columns of the given properties, to select in their declaration order.
+	 */
+	public static String columns(Set<BookField> fields) {
+		return fields.stream().map(BookField::column).collect(Collectors.joining(", "));
+	}
+
+	/**
+	 * Returns a number telling the sets of fields apart, for use in entity tags.
+	 */
+	public static int mask(Set<BookField> fields) {
+		var mask = 0;
+		for (var field : fields) {
+			mask |= 1 << field.ordinal();
+		}
+		return mask;
+	}
+
+}
@@ -0,0 +1,18 @@
+package lab.bookstore.catalogservice.domain;
+
+import java.time.Instant;
+
+/**
+ * Criteria a book must meet to be listed; {@code null} criteria are ignored. Author and
+ * publisher must match exactly, prices and the modification date are inclusive bounds.
+ */
+public record BookFilter(String author, String publisher, Double minPrice, Double maxPrice,
+		Instant modifiedSince) {
+
+	public static final BookFilter NONE = new BookFilter(null, null, null, null, null);
+
+	public boolean isEmpty() {
+		return equals(NONE);
+	}
+
+}
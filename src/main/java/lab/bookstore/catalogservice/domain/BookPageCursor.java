@@ -0,0 +1,49 @@
+package lab.bookstore.catalogservice.domain;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * Position in a sorted book listing: the sort value and id of the last book already
+ * seen. Like {@link BookChangeCursor}, it is handed to clients as an opaque string, which
+ * also records the order and criteria of the listing it was issued for, since the
+ * position means nothing in another listing.
+ */
+public record BookPageCursor(String value, long id) {
+
+	public static BookPageCursor after(Book book, BookSort sort) {
+		return new BookPageCursor(sort.property().valueOf(book), book.id());
+	}
+
+	public String encode(BookSort sort, BookFilter filter) {
+		return Base64.getUrlEncoder().withoutPadding()
+				.encodeToString((id + ":" + listing(sort, filter) + ":" + value).getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * @throws IllegalArgumentException if the cursor was not produced by
+	 * {@link #encode(BookSort, BookFilter)} for the same sort and filter
+	 */
+	public static BookPageCursor decode(String cursor, BookSort sort, BookFilter filter) {
+		var decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":", 3);
+		if (decoded.length < 3) {
+			throw new IllegalArgumentException("Malformed page cursor: " + cursor);
+		}
+		if (!decoded[1].equals(listing(sort, filter))) {
+			throw new IllegalArgumentException("The page cursor was issued for another sort order or filter");
+		}
+		return new BookPageCursor(decoded[2], Long.parseLong(decoded[0]));
+	}
+
+	/**
+	 * Identifies a listing by its sort parameter and a hash of its criteria, computed
+	 * the same way on every instance.
+	 */
+	private static String listing(BookSort sort, BookFilter filter) {
+		var criteria = Objects.hash(filter.author(), filter.publisher(), filter.minPrice(), filter.maxPrice(),
+				filter.modifiedSince());
+		return sort.toParameter() + "/" + Integer.toHexString(criteria);
+	}
+
+}
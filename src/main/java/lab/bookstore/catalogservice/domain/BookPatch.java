@@ -0,0 +1,85 @@
+package lab.bookstore.catalogservice.domain;
+
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+
+/**
+ * The book properties a partial update changes; {@code null} properties keep their
+ * current value. Read as a JSON merge patch: a property that is absent is kept, and a
+ * {@code null} one removes the publisher, the only property a book can do without.
+ */
+public record BookPatch(
+
+		@Pattern(regexp = ".*\\S.*", message = "The book name must not be blank.")
+		String name,
+
+		@Pattern(regexp = ".*\\S.*", message = "The book author must not be blank.")
+		String author,
+
+		@Positive(message = "The book price must be greater than zero.")
+		Double price,
+
+		String publisher,
+
+		boolean removePublisher
+
+) {
+
+	private static final Set<String> PROPERTIES = Set.of("name", "author", "price", "publisher");
+
+	public BookPatch(String name, String author, Double price, String publisher) {
+		this(name, author, price, publisher, false);
+	}
+
+	/**
+	 * Reads a patch from the JSON object's properties, telling an absent property apart
+	 * from a {@code null} one.
+	 *
+	 * @throws IllegalArgumentException if a property cannot be patched or has the wrong
+	 * type, or a required one is {@code null}
+	 */
+	@JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+	public static BookPatch of(Map<String, Object> properties) {
+		for (var name : properties.keySet()) {
+			if (!PROPERTIES.contains(name)) {
+				throw new IllegalArgumentException("The book " + name + " cannot be patched.");
+			}
+		}
+		return new BookPatch(required(properties, "name", String.class), required(properties, "author", String.class),
+				price(required(properties, "price", Number.class)), optional(properties, "publisher"),
+				properties.containsKey("publisher") && properties.get("publisher") == null);
+	}
+
+	public boolean isEmpty() {
+		return name == null && author == null && price == null && publisher == null && !removePublisher;
+	}
+
+	private static <T> T required(Map<String, Object> properties, String name, Class<T> type) {
+		if (properties.containsKey(name) && properties.get(name) == null) {
+			throw new IllegalArgumentException("The book " + name + " cannot be removed.");
+		}
+		return optional(properties, name, type);
+	}
+
+	private static String optional(Map<String, Object> properties, String name) {
+		return optional(properties, name, String.class);
+	}
+
+	private static <T> T optional(Map<String, Object> properties, String name, Class<T> type) {
+		var value = properties.get(name);
+		if (value != null && !type.isInstance(value)) {
+			throw new IllegalArgumentException("The book " + name + " has the wrong type.");
+		}
+		return type.cast(value);
+	}
+
+	private static Double price(Number price) {
+		return price != null ? price.doubleValue() : null;
+	}
+
+}
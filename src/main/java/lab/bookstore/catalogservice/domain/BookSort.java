@@ -0,0 +1,82 @@
+package lab.bookstore.catalogservice.domain;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+
+/**
+ * Order of a book listing: one property, ascending or descending, with the id breaking
+ * ties in the same direction so that every book has a unique position to resume from.
+ */
+public record BookSort(Property property, boolean descending) {
+
+	public static final BookSort BY_ID = new BookSort(Property.ID, false);
+
+	/**
+	 * Parses a property name, prefixed with {@code -} for descending order, such as
+	 * {@code -price}.
+	 *
+	 * @throws IllegalArgumentException if the property cannot be sorted on
+	 */
+	public static BookSort parse(String sort) {
+		var descending = sort.startsWith("-");
+		var name = descending ? sort.substring(1) : sort;
+		var property = Arrays.stream(Property.values())
+				.filter(candidate -> candidate.parameter.equals(name))
+				.findFirst()
+				.orElseThrow(() -> new IllegalArgumentException("Books cannot be sorted by " + sort));
+		return new BookSort(property, descending);
+	}
+
+	public String toParameter() {
+		return (descending ? "-" : "") + property.parameter;
+	}
+
+	public enum Property {
+
+		ID("id", "id"),
+		NAME("name", "name"),
+		PRICE("price", "price"),
+		LAST_MODIFIED_DATE("lastModifiedDate", "last_modified_date");
+
+		private final String parameter;
+		private final String column;
+
+		Property(String parameter, String column) {
+			this.parameter = parameter;
+			this.column = column;
+		}
+
+		public String column() {
+			return column;
+		}
+
+		/**
+		 * Returns the book's value of this property in the form kept in a cursor.
+		 */
+		String valueOf(Book book) {
+			return switch (this) {
+				case ID -> String.valueOf(book.id());
+				case NAME -> book.name();
+				case PRICE -> String.valueOf(book.price());
+				case LAST_MODIFIED_DATE -> String.valueOf(ChronoUnit.MICROS.between(Instant.EPOCH, book.lastModifiedDate()));
+			};
+		}
+
+		/**
+		 * Converts a value kept in a cursor back into the property's type.
+		 *
+		 * @throws IllegalArgumentException if the value does not belong to this property
+		 */
+		public Object parseValue(String value) {
+			return switch (this) {
+				case ID -> Long.parseLong(value);
+				case NAME -> value;
+				case PRICE -> Double.parseDouble(value);
+				case LAST_MODIFIED_DATE -> Instant.EPOCH.plus(Long.parseLong(value), ChronoUnit.MICROS);
+			};
+		}
+
+	}
+
+}
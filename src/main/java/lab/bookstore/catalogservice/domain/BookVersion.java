@@ -0,0 +1,15 @@
+package lab.bookstore.catalogservice.domain;
+
+import java.time.Instant;
+
+/**
+ * The identity and version of a stored book, enough to validate a cached copy of it
+ * without reading the whole row.
+ */
+public record BookVersion(Long id, int version, Instant lastModifiedDate) {
+
+	public static BookVersion of(Book book) {
+		return new BookVersion(book.id(), book.version(), book.lastModifiedDate());
+	}
+
+}
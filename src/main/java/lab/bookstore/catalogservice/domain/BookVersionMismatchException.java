@@ -0,0 +1,11 @@
+package lab.bookstore.catalogservice.domain;
+
+public class BookVersionMismatchException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public BookVersionMismatchException(String isbn) {
+        super("The book with ISBN " + isbn + " has been changed or deleted since the given version.");
+    }
+
+}
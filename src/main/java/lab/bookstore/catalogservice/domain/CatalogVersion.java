@@ -0,0 +1,8 @@
+package lab.bookstore.catalogservice.domain;
+
+/**
+ * Version of the catalog as a whole, incremented by every statement that adds, edits or
+ * removes at least one book.
+ */
+public record CatalogVersion(long version) {
+}
@@ -0,0 +1,120 @@
+package lab.bookstore.catalogservice.repo;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import lab.bookstore.catalogservice.domain.Book;
+import lab.bookstore.catalogservice.domain.BookChange;
+import lab.bookstore.catalogservice.domain.BookChangeCursor;
+import lab.bookstore.catalogservice.domain.BookField;
+import lab.bookstore.catalogservice.domain.BookFilter;
+import lab.bookstore.catalogservice.domain.BookPatch;
+import lab.bookstore.catalogservice.domain.BookPageCursor;
+import lab.bookstore.catalogservice.domain.BookSort;
+import lab.bookstore.catalogservice.domain.BookVersion;
+import lab.bookstore.catalogservice.domain.CatalogVersion;
+
+/**
+ * Queries on the {@code book} table that Spring Data JDBC cannot express on its own.
+ */
+public interface BookQueries {
+
+	/**
+	 * Streams every book in id order off a server-side cursor, so memory stays flat
+	 * regardless of the catalog size. PostgreSQL only honours the fetch size inside a
+	 * transaction, and the caller must close the stream.
+	 */
+	Stream<Book> streamAll();
+
+	/**
+	 * Inserts the book in a single statement, stamping the audit columns and the initial
+	 * version, unless a book with the same ISBN exists.
+	 *
+	 * @return the inserted book, or empty if the ISBN is already taken
+	 */
+	Optional<Book> insertIfAbsent(Book book);
+
+	/**
+	 * Inserts or updates the book with the given ISBN in a single statement. An update
+	 * keeps the creation audit columns and increments the version.
+	 */
+	Book upsert(String isbn, Book book);
+
+	/**
+	 * Deletes the books with any of the given ISBNs in a single {@code isbn = any(?)}
+	 * statement. Each deleted book leaves a tombstone for the change feed.
+	 *
+	 * @return the ISBNs of the books deleted
+	 */
+	List<String> deleteAllByIsbn(Collection<String> isbns);
+
+	/**
+	 * Deletes at most {@code limit} of the books meeting the filter, lowest ids first, in
+	 * a single statement, like {@link #deleteAllByIsbn}.
+	 *
+	 * @return the ISBNs of the books deleted
+	 * @throws IllegalArgumentException if the filter sets no criteria
+	 */
+	List<String> deleteMatching(BookFilter filter, int limit);
+
+	/**
+	 * Replaces the properties of the book with the given ISBN in a single statement,
+	 * provided it still has the expected id and version, or has any version if
+	 * {@code expected} is {@code null}. The version is incremented.
+	 *
+	 * @return the updated book, or empty if no book with the ISBN is at that version
+	 */
+	Optional<Book> update(String isbn, Book book, BookVersion expected);
+
+	/**
+	 * Like {@link #update}, changing only the properties the patch sets.
+	 */
+	Optional<Book> patch(String isbn, BookPatch patch, BookVersion expected);
+
+	/**
+	 * Inserts the books as one JDBC batch, stamping the audit columns and the initial
+	 * version. A book whose ISBN already exists is skipped and reported with an update
+	 * count of 0 at its position in the returned array.
+	 */
+	int[] insertAll(List<Book> books);
+
+	/**
+	 * Finds the books with any of the given ISBNs in a single {@code isbn = any(?)} query.
+	 */
+	List<Book> findAllByIsbn(Collection<String> isbns);
+
+	Optional<BookVersion> findVersionByIsbn(String isbn);
+
+	/**
+	 * Reads the catalog version off the one-row counter that every write to the
+	 * {@code book} table increments.
+	 */
+	CatalogVersion findCatalogVersion();
+
+	/**
+	 * Returns the books written and deleted after the cursor and at least
+	 * {@code settleTime} before now by the database clock, in cursor order. Each book
+	 * appears once, with its latest state.
+	 */
+	List<BookChange> findChangesAfter(BookChangeCursor after, Duration settleTime, int limit);
+
+	/**
+	 * Returns one keyset page of the books meeting the filter, in the given order,
+	 * starting after the cursor, or from the first book if it is {@code null}. Only the
+	 * given fields are read, plus the id and the sort property that the cursor needs.
+	 *
+	 * @throws IllegalArgumentException if the cursor was not issued for this order
+	 */
+	List<Book> findPage(BookFilter filter, BookSort sort, BookPageCursor after, int limit, Set<BookField> fields);
+
+	/**
+	 * Finds the books whose name, author or publisher match the query, either as words
+	 * (web search syntax) or by trigram similarity, best matches first.
+	 */
+	List<Book> search(String query, int limit, long offset);
+
+}
@@ -0,0 +1,362 @@
+package lab.bookstore.catalogservice.repo;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.annotation.Transactional;
+
+import lab.bookstore.catalogservice.domain.Book;
+import lab.bookstore.catalogservice.domain.BookChange;
+import lab.bookstore.catalogservice.domain.BookChangeCursor;
+import lab.bookstore.catalogservice.domain.BookField;
+import lab.bookstore.catalogservice.domain.BookFilter;
+import lab.bookstore.catalogservice.domain.BookPatch;
+import lab.bookstore.catalogservice.domain.BookPageCursor;
+import lab.bookstore.catalogservice.domain.BookSort;
+import lab.bookstore.catalogservice.domain.BookVersion;
+import lab.bookstore.catalogservice.domain.CatalogVersion;
+
+class BookQueriesImpl implements BookQueries {
+
+	private static final int STREAM_FETCH_SIZE = 500;
+
+	/*
+	 * The creation and modification dates are stamped by the book_stamp_dates trigger, on
+	 * the database clock that also stamps tombstones and bounds the change feed. The
+	 * writes are shared with ReactiveBookQueriesImpl.
+	 */
+	private static final String INSERT = """
+			insert into book (isbn, name, author, price, publisher, created_by, last_modified_by, version)
+			values (:isbn, :name, :author, :price, :publisher, :auditor, :auditor, 1)
+			""";
+
+	static final String INSERT_IF_ABSENT = INSERT + "on conflict (isbn) do nothing\n";
+
+	static final String UPSERT = INSERT + """
+			on conflict (isbn) do update set
+				name = excluded.name,
+				author = excluded.author,
+				price = excluded.price,
+				publisher = excluded.publisher,
+				last_modified_by = excluded.last_modified_by,
+				version = book.version + 1
+			""";
+
+	static final String UPDATE = """
+			update book set
+				name = :name,
+				author = :author,
+				price = :price,
+				publisher = :publisher,
+				last_modified_by = :auditor,
+				version = version + 1
+			where isbn = :isbn
+			""";
+
+	static final String PATCH = """
+			update book set
+				name = coalesce(:name, name),
+				author = coalesce(:author, author),
+				price = coalesce(:price, price),
+				publisher = case when :removePublisher then null else coalesce(:publisher, publisher) end,
+				last_modified_by = :auditor,
+				version = version + 1
+			where isbn = :isbn
+			""";
+
+	static final String IF_VERSION = "and id = :id and version = :version\n";
+
+	static final String RETURNING = "returning " + BookRowMapper.COLUMNS;
+
+	/*
+	 * Trigram similarity is weighted like the tsvector weights (A = 1.0, B = 0.4, C = 0.2),
+	 * so a fuzzy match on the name still outranks one on the author or publisher. Shared
+	 * with ReactiveBookRepository.
+	 */
+	static final String SEARCH = "select " + BookRowMapper.COLUMNS + "\n" + """
+			from book, websearch_to_tsquery('simple', :query) terms
+			where search_vector @@ terms or name % :query or author % :query or publisher % :query
+			order by ts_rank(search_vector, terms)
+					+ greatest(similarity(name, :query), 0.4 * similarity(author, :query),
+						0.2 * similarity(coalesce(publisher, ''), :query)) desc,
+				id
+			limit :limit offset :offset
+			""";
+
+	/*
+	 * Both sides are limited on their own so each reads at most one page off its
+	 * (date, isbn) index before the merge. The bound is taken from the database clock,
+	 * like the dates it is compared with, once per query.
+	 */
+	private static final String CHANGES = """
+			with bound as (select clock_timestamp()::timestamp - :settleMillis * interval '1 millisecond' as until)
+			select * from (
+				(select last_modified_date as changed_date, false as deleted, %s
+				from book
+				where (last_modified_date, isbn) > (:date, :isbn) and last_modified_date <= (select until from bound)
+				order by last_modified_date, isbn
+				limit :limit)
+				union all
+				(select deleted_date, true, null, isbn, null, null, null, null, null, null, null, null, null
+				from book_tombstone
+				where (deleted_date, isbn) > (:date, :isbn) and deleted_date <= (select until from bound)
+				order by deleted_date, isbn
+				limit :limit)
+			) changes
+			order by changed_date, isbn
+			limit :limit
+			""".formatted(BookRowMapper.COLUMNS);
+
+	private final JdbcTemplate jdbcTemplate;
+	private final NamedParameterJdbcTemplate namedJdbcTemplate;
+	private final AuditorAware<String> auditorAware;
+
+	BookQueriesImpl(JdbcTemplate jdbcTemplate, NamedParameterJdbcTemplate namedJdbcTemplate,
+			AuditorAware<String> auditorAware) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.namedJdbcTemplate = namedJdbcTemplate;
+		this.auditorAware = auditorAware;
+	}
+
+	@Override
+	public Stream<Book> streamAll() {
+		return jdbcTemplate.queryForStream(connection -> {
+			var statement = connection.prepareStatement("select " + BookRowMapper.COLUMNS + " from book order by id");
+			statement.setFetchSize(STREAM_FETCH_SIZE);
+			return statement;
+		}, BookRowMapper.INSTANCE);
+	}
+
+	@Override
+	public Optional<Book> insertIfAbsent(Book book) {
+		var parameters = writeParameters(book.isbn(), book, currentAuditor());
+		return namedJdbcTemplate.query(INSERT_IF_ABSENT + RETURNING, parameters, BookRowMapper.INSTANCE)
+				.stream().findFirst();
+	}
+
+	@Override
+	public Book upsert(String isbn, Book book) {
+		var parameters = writeParameters(isbn, book, currentAuditor());
+		return namedJdbcTemplate.queryForObject(UPSERT + RETURNING, parameters, BookRowMapper.INSTANCE);
+	}
+
+	@Override
+	public List<String> deleteAllByIsbn(Collection<String> isbns) {
+		if (isbns.isEmpty()) {
+			return List.of();
+		}
+		return jdbcTemplate.query(connection -> {
+			var statement = connection.prepareStatement("delete from book where isbn = any(?) returning isbn");
+			statement.setArray(1, connection.createArrayOf("varchar", isbns.toArray()));
+			return statement;
+		}, (rs, rowNum) -> rs.getString("isbn"));
+	}
+
+	@Override
+	public List<String> deleteMatching(BookFilter filter, int limit) {
+		if (filter.isEmpty()) {
+			throw new IllegalArgumentException("Deleting books needs at least one criterion");
+		}
+		var predicates = new ArrayList<String>();
+		var parameters = new MapSqlParameterSource("limit", limit);
+		addFilterPredicates(filter, predicates, parameters);
+		return namedJdbcTemplate.queryForList("delete from book where id in (select id from book where "
+				+ String.join(" and ", predicates) + " order by id limit :limit) returning isbn", parameters,
+				String.class);
+	}
+
+	@Override
+	public Optional<Book> update(String isbn, Book book, BookVersion expected) {
+		var parameters = writeParameters(isbn, book, currentAuditor());
+		return updateIfVersion(UPDATE, parameters, expected);
+	}
+
+	@Override
+	public Optional<Book> patch(String isbn, BookPatch patch, BookVersion expected) {
+		var parameters = new MapSqlParameterSource()
+				.addValue("isbn", isbn)
+				.addValue("name", patch.name())
+				.addValue("author", patch.author())
+				.addValue("price", patch.price())
+				.addValue("publisher", patch.publisher())
+				.addValue("removePublisher", patch.removePublisher())
+				.addValue("auditor", currentAuditor());
+		return updateIfVersion(PATCH, parameters, expected);
+	}
+
+	private Optional<Book> updateIfVersion(String update, MapSqlParameterSource parameters, BookVersion expected) {
+		var sql = update;
+		if (expected != null) {
+			sql += IF_VERSION;
+			parameters.addValue("id", expected.id()).addValue("version", expected.version());
+		}
+		return namedJdbcTemplate.query(sql + RETURNING, parameters, BookRowMapper.INSTANCE).stream().findFirst();
+	}
+
+	@Override
+	@Transactional
+	public int[] insertAll(List<Book> books) {
+		var auditor = currentAuditor();
+		var batch = books.stream()
+				.map(book -> writeParameters(book.isbn(), book, auditor))
+				.toArray(SqlParameterSource[]::new);
+		return namedJdbcTemplate.batchUpdate(INSERT_IF_ABSENT, batch);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public List<Book> findAllByIsbn(Collection<String> isbns) {
+		return jdbcTemplate.query(connection -> {
+			var statement = connection.prepareStatement("select " + BookRowMapper.COLUMNS + " from book where isbn = any(?)");
+			statement.setArray(1, connection.createArrayOf("varchar", isbns.toArray()));
+			return statement;
+		}, BookRowMapper.INSTANCE);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public Optional<BookVersion> findVersionByIsbn(String isbn) {
+		return jdbcTemplate.query("select id, version, last_modified_date from book where isbn = ?",
+				(rs, rowNum) -> new BookVersion(rs.getLong("id"), rs.getInt("version"),
+						BookRowMapper.toInstant(rs.getTimestamp("last_modified_date"))), isbn)
+				.stream().findFirst();
+	}
+
+	@Override
+	public CatalogVersion findCatalogVersion() {
+		return new CatalogVersion(jdbcTemplate.queryForObject("select sum(version) from catalog_version", Long.class));
+	}
+
+	@Override
+	public List<Book> search(String query, int limit, long offset) {
+		var parameters = new MapSqlParameterSource()
+				.addValue("query", query)
+				.addValue("limit", limit)
+				.addValue("offset", offset);
+		return namedJdbcTemplate.query(SEARCH, parameters, BookRowMapper.INSTANCE);
+	}
+
+	@Override
+	public List<BookChange> findChangesAfter(BookChangeCursor after, Duration settleTime, int limit) {
+		var parameters = new MapSqlParameterSource()
+				.addValue("date", Timestamp.from(after.changedDate()))
+				.addValue("isbn", after.isbn())
+				.addValue("settleMillis", settleTime.toMillis())
+				.addValue("limit", limit);
+		return namedJdbcTemplate.query(CHANGES, parameters, (rs, rowNum) -> rs.getBoolean("deleted")
+				? BookChange.delete(rs.getString("isbn"), BookRowMapper.toInstant(rs.getTimestamp("changed_date")))
+				: BookChange.upsert(BookRowMapper.INSTANCE.mapRow(rs, rowNum)));
+	}
+
+	@Override
+	public List<Book> findPage(BookFilter filter, BookSort sort, BookPageCursor after, int limit,
+			Set<BookField> fields) {
+		var selected = selected(fields, BookField.ID, BookField.valueOf(sort.property().name()));
+		var query = pageQuery(filter, sort, after, limit, selected);
+		return namedJdbcTemplate.query(query.sql(), query.parameters(), BookRowMapper.of(selected));
+	}
+
+	/**
+	 * Compiles a listing into one statement holding only the predicates of the given
+	 * criteria, so that the planner can pick the index matching them. The keyset
+	 * predicate compares (sort column, id) as a row, which a (column, id) index answers
+	 * directly in either direction.
+	 */
+	static PageQuery pageQuery(BookFilter filter, BookSort sort, BookPageCursor after, int limit,
+			Set<BookField> columns) {
+		var predicates = new ArrayList<String>();
+		var parameters = new MapSqlParameterSource("limit", limit);
+		addFilterPredicates(filter, predicates, parameters);
+		var byId = sort.property() == BookSort.Property.ID;
+		var column = sort.property().column();
+		var comparison = sort.descending() ? "<" : ">";
+		var direction = sort.descending() ? " desc" : "";
+		if (after != null) {
+			if (byId) {
+				predicates.add("id " + comparison + " :afterId");
+			} else {
+				predicates.add("(" + column + ", id) " + comparison + " (:afterValue, :afterId)");
+				var value = sort.property().parseValue(after.value());
+				parameters.addValue("afterValue", value instanceof Instant instant ? Timestamp.from(instant) : value);
+			}
+			parameters.addValue("afterId", after.id());
+		}
+		var sql = new StringBuilder("select ").append(BookField.columns(columns)).append(" from book");
+		if (!predicates.isEmpty()) {
+			sql.append(" where ").append(String.join(" and ", predicates));
+		}
+		sql.append(" order by ");
+		if (!byId) {
+			sql.append(column).append(direction).append(", ");
+		}
+		sql.append("id").append(direction).append(" limit :limit");
+		return new PageQuery(sql.toString(), parameters);
+	}
+
+	record PageQuery(String sql, MapSqlParameterSource parameters) {
+	}
+
+	/**
+	 * Adds the predicates and parameters of the criteria set in the filter.
+	 */
+	private static void addFilterPredicates(BookFilter filter, List<String> predicates,
+			MapSqlParameterSource parameters) {
+		if (filter.author() != null) {
+			predicates.add("author = :author");
+			parameters.addValue("author", filter.author());
+		}
+		if (filter.publisher() != null) {
+			predicates.add("publisher = :publisher");
+			parameters.addValue("publisher", filter.publisher());
+		}
+		if (filter.minPrice() != null) {
+			predicates.add("price >= :minPrice");
+			parameters.addValue("minPrice", filter.minPrice());
+		}
+		if (filter.maxPrice() != null) {
+			predicates.add("price <= :maxPrice");
+			parameters.addValue("maxPrice", filter.maxPrice());
+		}
+		if (filter.modifiedSince() != null) {
+			predicates.add("last_modified_date >= :modifiedSince");
+			parameters.addValue("modifiedSince", Timestamp.from(filter.modifiedSince()));
+		}
+	}
+
+	/**
+	 * Adds the columns a query needs for itself, such as its keyset, to those asked for.
+	 */
+	private static Set<BookField> selected(Set<BookField> fields, BookField... required) {
+		var selected = EnumSet.copyOf(fields);
+		selected.addAll(List.of(required));
+		return selected;
+	}
+
+	private String currentAuditor() {
+		return auditorAware.getCurrentAuditor().orElse(null);
+	}
+
+	private static MapSqlParameterSource writeParameters(String isbn, Book book, String auditor) {
+		return new MapSqlParameterSource()
+				.addValue("isbn", isbn)
+				.addValue("name", book.name())
+				.addValue("author", book.author())
+				.addValue("price", book.price())
+				.addValue("publisher", book.publisher())
+				.addValue("auditor", auditor);
+	}
+
+}
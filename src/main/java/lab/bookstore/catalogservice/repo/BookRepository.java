@@ -1,5 +1,6 @@
 package lab.bookstore.catalogservice.repo;
 
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jdbc.repository.query.Modifying;
@@ -10,12 +11,16 @@ import org.springframework.transaction.annotation.Transactional;
 
 import lab.bookstore.catalogservice.domain.Book;
 
-public interface BookRepository extends CrudRepository<Book,Long> {
+public interface BookRepository extends CrudRepository<Book,Long>, BookQueries {
 
+	@Transactional(readOnly = true)
 	Optional<Book> findByIsbn(String isbn);
 
 	boolean existsByIsbn(String isbn);
 
+	@Query("select " + BookRowMapper.COLUMNS + " from book where id > :after order by id limit :limit")
+	List<Book> findPageAfter(@Param("after") long after, @Param("limit") int limit);
+
 	@Modifying
 	@Transactional
 	@Query("delete from Book where isbn = :isbn")
@@ -0,0 +1,64 @@
+package lab.bookstore.catalogservice.repo;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Set;
+
+import org.springframework.jdbc.core.RowMapper;
+
+import lab.bookstore.catalogservice.domain.Book;
+import lab.bookstore.catalogservice.domain.BookField;
+
+/**
+ * Maps a {@code book} row for the hand-written queries in {@link BookQueriesImpl}. A
+ * mapper for a projection reads only the selected columns and leaves the other
+ * properties empty.
+ */
+class BookRowMapper implements RowMapper<Book> {
+
+	/**
+	 * The columns of a {@link Book}, to select instead of {@code *} so that derived
+	 * columns such as the search vector are not sent over the wire.
+	 */
+	static final String COLUMNS = "id, isbn, name, author, price, publisher, created_date, last_modified_date, "
+			+ "created_by, last_modified_by, version";
+
+	static final BookRowMapper INSTANCE = new BookRowMapper(BookField.ALL);
+
+	private final Set<BookField> fields;
+
+	private BookRowMapper(Set<BookField> fields) {
+		this.fields = fields;
+	}
+
+	static BookRowMapper of(Set<BookField> fields) {
+		return fields.equals(BookField.ALL) ? INSTANCE : new BookRowMapper(fields);
+	}
+
+	@Override
+	public Book mapRow(ResultSet rs, int rowNum) throws SQLException {
+		return new Book(
+				has(BookField.ID) ? rs.getLong("id") : null,
+				has(BookField.ISBN) ? rs.getString("isbn") : null,
+				has(BookField.NAME) ? rs.getString("name") : null,
+				has(BookField.AUTHOR) ? rs.getString("author") : null,
+				has(BookField.PRICE) ? rs.getDouble("price") : null,
+				has(BookField.PUBLISHER) ? rs.getString("publisher") : null,
+				has(BookField.CREATED_DATE) ? toInstant(rs.getTimestamp("created_date")) : null,
+				has(BookField.LAST_MODIFIED_DATE) ? toInstant(rs.getTimestamp("last_modified_date")) : null,
+				has(BookField.CREATED_BY) ? rs.getString("created_by") : null,
+				has(BookField.LAST_MODIFIED_BY) ? rs.getString("last_modified_by") : null,
+				has(BookField.VERSION) ? rs.getInt("version") : 0);
+	}
+
+	private boolean has(BookField field) {
+		return fields.contains(field);
+	}
+
+	static Instant toInstant(Timestamp timestamp) {
+		return timestamp != null ? timestamp.toInstant() : null;
+	}
+
+}
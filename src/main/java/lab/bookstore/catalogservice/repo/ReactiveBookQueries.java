@@ -0,0 +1,51 @@
+package lab.bookstore.catalogservice.repo;
+
+import lab.bookstore.catalogservice.domain.Book;
+import lab.bookstore.catalogservice.domain.BookFilter;
+import lab.bookstore.catalogservice.domain.BookPageCursor;
+import lab.bookstore.catalogservice.domain.BookPatch;
+import lab.bookstore.catalogservice.domain.BookSort;
+import lab.bookstore.catalogservice.domain.BookVersion;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * The queries of {@link BookQueries} that the reactive profile needs, as the same single
+ * statements over R2DBC.
+ */
+public interface ReactiveBookQueries {
+
+	/**
+	 * Inserts the book in a single statement unless a book with the same ISBN exists.
+	 *
+	 * @return the inserted book, or empty if the ISBN is already taken
+	 */
+	Mono<Book> insertIfAbsent(Book book);
+
+	/**
+	 * Inserts or updates the book with the given ISBN in a single statement. An update
+	 * keeps the creation audit columns and increments the version.
+	 */
+	Mono<Book> upsert(String isbn, Book book);
+
+	/**
+	 * Like {@link BookQueries#update}, updates the book only if it is still at the
+	 * expected version.
+	 *
+	 * @return the updated book, or empty if it does not exist or is at another version
+	 */
+	Mono<Book> update(String isbn, Book book, BookVersion expected);
+
+	/**
+	 * Like {@link BookQueries#patch}, changes only the properties the patch sets.
+	 *
+	 * @return the patched book, or empty if it does not exist or is at another version
+	 */
+	Mono<Book> patch(String isbn, BookPatch patch, BookVersion expected);
+
+	/**
+	 * Like {@link BookQueries#findPage}, with every column of the books.
+	 */
+	Flux<Book> findPage(BookFilter filter, BookSort sort, BookPageCursor after, int limit);
+
+}
@@ -0,0 +1,108 @@
+package lab.bookstore.catalogservice.repo;
+
+import java.sql.Timestamp;
+import java.util.Optional;
+import java.util.function.UnaryOperator;
+
+import org.springframework.data.domain.ReactiveAuditorAware;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.r2dbc.core.DatabaseClient.GenericExecuteSpec;
+
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import lab.bookstore.catalogservice.domain.Book;
+import lab.bookstore.catalogservice.domain.BookField;
+import lab.bookstore.catalogservice.domain.BookFilter;
+import lab.bookstore.catalogservice.domain.BookPageCursor;
+import lab.bookstore.catalogservice.domain.BookPatch;
+import lab.bookstore.catalogservice.domain.BookSort;
+import lab.bookstore.catalogservice.domain.BookVersion;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class ReactiveBookQueriesImpl implements ReactiveBookQueries {
+
+	private final R2dbcEntityTemplate template;
+	private final ReactiveAuditorAware<String> auditorAware;
+
+	ReactiveBookQueriesImpl(R2dbcEntityTemplate template, ReactiveAuditorAware<String> auditorAware) {
+		this.template = template;
+		this.auditorAware = auditorAware;
+	}
+
+	@Override
+	public Mono<Book> insertIfAbsent(Book book) {
+		return write(BookQueriesImpl.INSERT_IF_ABSENT, null, bookParameters(book.isbn(), book));
+	}
+
+	@Override
+	public Mono<Book> upsert(String isbn, Book book) {
+		return write(BookQueriesImpl.UPSERT, null, bookParameters(isbn, book));
+	}
+
+	@Override
+	public Mono<Book> update(String isbn, Book book, BookVersion expected) {
+		return write(BookQueriesImpl.UPDATE, expected, bookParameters(isbn, book));
+	}
+
+	@Override
+	public Mono<Book> patch(String isbn, BookPatch patch, BookVersion expected) {
+		return write(BookQueriesImpl.PATCH, expected, spec -> {
+			spec = spec.bind("isbn", isbn).bind("removePublisher", patch.removePublisher());
+			spec = bindNullable(spec, "name", patch.name(), String.class);
+			spec = bindNullable(spec, "author", patch.author(), String.class);
+			spec = bindNullable(spec, "price", patch.price(), Double.class);
+			return bindNullable(spec, "publisher", patch.publisher(), String.class);
+		});
+	}
+
+	@Override
+	public Flux<Book> findPage(BookFilter filter, BookSort sort, BookPageCursor after, int limit) {
+		var query = BookQueriesImpl.pageQuery(filter, sort, after, limit, BookField.ALL);
+		var spec = template.getDatabaseClient().sql(query.sql());
+		for (var name : query.parameters().getParameterNames()) {
+			var value = query.parameters().getValue(name);
+			// Dates are given to JDBC as timestamps, which R2DBC does not bind
+			spec = spec.bind(name, value instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : value);
+		}
+		return spec.map(this::read).all();
+	}
+
+	/**
+	 * Runs a write shared with the JDBC repository, only if the book is still at the
+	 * expected version when one is given, and reads back the written row.
+	 */
+	private Mono<Book> write(String statement, BookVersion expected, UnaryOperator<GenericExecuteSpec> parameters) {
+		var sql = expected != null ? statement + BookQueriesImpl.IF_VERSION : statement;
+		return auditor().flatMap(auditor -> {
+			var spec = parameters.apply(template.getDatabaseClient().sql(sql + BookQueriesImpl.RETURNING));
+			if (expected != null) {
+				spec = spec.bind("id", expected.id()).bind("version", expected.version());
+			}
+			return bindNullable(spec, "auditor", auditor.orElse(null), String.class).map(this::read).one();
+		});
+	}
+
+	private static UnaryOperator<GenericExecuteSpec> bookParameters(String isbn, Book book) {
+		return spec -> bindNullable(spec
+				.bind("isbn", isbn)
+				.bind("name", book.name())
+				.bind("author", book.author())
+				.bind("price", book.price()), "publisher", book.publisher(), String.class);
+	}
+
+	private Mono<Optional<String>> auditor() {
+		return auditorAware.getCurrentAuditor()
+				.map(Optional::of)
+				.defaultIfEmpty(Optional.empty());
+	}
+
+	private Book read(Row row, RowMetadata metadata) {
+		return template.getConverter().read(Book.class, row, metadata);
+	}
+
+	private static <T> GenericExecuteSpec bindNullable(GenericExecuteSpec spec, String name, T value, Class<T> type) {
+		return value != null ? spec.bind(name, value) : spec.bindNull(name, type);
+	}
+
+}
@@ -0,0 +1,38 @@
+package lab.bookstore.catalogservice.repo;
+
+import java.util.Collection;
+
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+
+import lab.bookstore.catalogservice.domain.Book;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * The R2DBC counterpart of {@link BookRepository}, used by the {@code reactive} profile.
+ */
+public interface ReactiveBookRepository extends ReactiveCrudRepository<Book, Long>, ReactiveBookQueries {
+
+	Mono<Book> findByIsbn(String isbn);
+
+	Flux<Book> findByIsbnIn(Collection<String> isbns);
+
+	Mono<Boolean> existsByIsbn(String isbn);
+
+	@Query("select " + BookRowMapper.COLUMNS + " from book where id > :after order by id limit :limit")
+	Flux<Book> findPageAfter(@Param("after") long after, @Param("limit") int limit);
+
+	@Query("select " + BookRowMapper.COLUMNS + " from book order by id")
+	Flux<Book> streamAll();
+
+	@Query(BookQueriesImpl.SEARCH)
+	Flux<Book> search(@Param("query") String query, @Param("limit") int limit, @Param("offset") long offset);
+
+	@Modifying
+	@Query("delete from book where isbn = :isbn")
+	Mono<Integer> deleteByIsbn(@Param("isbn") String isbn);
+
+}
@@ -0,0 +1,143 @@
+package lab.bookstore.catalogservice.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lab.bookstore.catalogservice.config.BookCacheProperties;
+import lab.bookstore.catalogservice.config.ReadConsistency;
+import lab.bookstore.catalogservice.domain.Book;
+
+/**
+ * Read-through cache of books keyed by ISBN, bounded in size and time to live.
+ * <p>
+ * A load that raced with a write is not installed, since it may have read the row
+ * before the write committed, and an entry is never replaced by an older
+ * {@link Book#version() version} of the same book.
+ * <p>
+ * Concurrent misses on the same ISBN share a single load, found or not, so a burst of
+ * requests for a title that is not cached yet takes one connection rather than one each.
+ * Shared loads are counted as {@code catalog.lookups.coalesced}.
+ * <p>
+ * Strong reads ({@link ReadConsistency#isStrong()}) bypass the cache and load on their
+ * own: an entry may have been read from a replica that had not caught up with the
+ * caller's writes, which may also be true of the load in flight. What they load still
+ * refreshes the cache.
+ */
+@Component
+public class BookCache {
+
+	private final Cache<String, Book> cache;
+	private final AtomicLong writes = new AtomicLong();
+	private final SingleFlight<String, Optional<Book>> loads = new SingleFlight<>();
+
+	public BookCache(BookCacheProperties properties, MeterRegistry meterRegistry) {
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(properties.getMaximumSize())
+				.expireAfterWrite(properties.getTimeToLive())
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, cache, "books");
+		FunctionCounter.builder("catalog.lookups.coalesced", loads, SingleFlight::coalesced)
+				.description("Book lookups that shared a load already in flight for the same ISBN")
+				.register(meterRegistry);
+	}
+
+	public Optional<Book> get(String isbn, Function<String, Optional<Book>> loader) {
+		Function<String, Optional<Book>> load = key -> {
+			var writesBeforeLoad = writes.get();
+			var loaded = loader.apply(key);
+			loaded.ifPresent(book -> install(book, writesBeforeLoad));
+			return loaded;
+		};
+		if (ReadConsistency.isStrong()) {
+			return load.apply(isbn);
+		}
+		var cached = cache.getIfPresent(isbn);
+		if (cached != null) {
+			return Optional.of(cached);
+		}
+		return loads.load(isbn, load);
+	}
+
+	/**
+	 * Returns the cached books among the given ISBNs and loads the others with one call
+	 * to the loader. ISBNs that are neither cached nor loaded are absent from the result.
+	 */
+	public Map<String, Book> getAll(Collection<String> isbns, Function<List<String>, List<Book>> loader) {
+		var books = new HashMap<String, Book>(ReadConsistency.isStrong() ? Map.of() : cache.getAllPresent(isbns));
+		var misses = new ArrayList<String>();
+		for (var isbn : isbns) {
+			if (!books.containsKey(isbn)) {
+				misses.add(isbn);
+			}
+		}
+		if (misses.isEmpty()) {
+			return books;
+		}
+		var writesBeforeLoad = writes.get();
+		for (var book : loader.apply(misses)) {
+			books.put(book.isbn(), book);
+			install(book, writesBeforeLoad);
+		}
+		return books;
+	}
+
+	public Optional<Book> peek(String isbn) {
+		if (ReadConsistency.isStrong()) {
+			return Optional.empty();
+		}
+		return Optional.ofNullable(cache.getIfPresent(isbn));
+	}
+
+	/**
+	 * Installs a book that has just been written to the database.
+	 */
+	public void update(Book book) {
+		writes.incrementAndGet();
+		loads.forget(book.isbn());
+		cache.asMap().merge(book.isbn(), book, BookCache::newer);
+	}
+
+	public void invalidate(String isbn) {
+		writes.incrementAndGet();
+		loads.forget(isbn);
+		cache.invalidate(isbn);
+	}
+
+	public void invalidateAll(Collection<String> isbns) {
+		writes.incrementAndGet();
+		isbns.forEach(loads::forget);
+		cache.invalidateAll(isbns);
+	}
+
+	private void install(Book book, long writesBeforeLoad) {
+		cache.asMap().compute(book.isbn(), (isbn, current) -> {
+			if (writes.get() != writesBeforeLoad) {
+				return current;
+			}
+			return current == null ? book : newer(current, book);
+		});
+	}
+
+	private static Book newer(Book current, Book candidate) {
+		if (current.id() != null && current.id().equals(candidate.id()) && current.version() > candidate.version()) {
+			return current;
+		}
+		return candidate;
+	}
+
+}
@@ -0,0 +1,13 @@
+package lab.bookstore.catalogservice.service;
+
+import java.util.List;
+
+import lab.bookstore.catalogservice.domain.BookChange;
+
+/**
+ * A page of the changes feed. {@code cursor} resumes the feed after the last change of
+ * the page, or where it started when the page is empty; {@code hasMore} tells whether
+ * the next page can be fetched right away.
+ */
+public record BookChangePage(List<BookChange> changes, String cursor, boolean hasMore) {
+}
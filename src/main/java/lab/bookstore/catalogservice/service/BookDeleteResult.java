@@ -0,0 +1,15 @@
+package lab.bookstore.catalogservice.service;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk delete: how many books were deleted, their ISBNs, and whether more
+ * books may still match, when the delete was bounded.
+ */
+public record BookDeleteResult(int deleted, List<String> isbns, boolean more) {
+
+	public BookDeleteResult(int deleted, List<String> isbns) {
+		this(deleted, isbns, false);
+	}
+
+}
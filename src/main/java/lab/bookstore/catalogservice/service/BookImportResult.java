@@ -0,0 +1,16 @@
+package lab.bookstore.catalogservice.service;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk import: how many books were added and why the others were not.
+ */
+public record BookImportResult(int imported, List<BookImportError> errors) {
+
+	/**
+	 * A record of the feed that was not imported, identified by its zero-based position.
+	 */
+	public record BookImportError(int index, String isbn, List<String> messages) {
+	}
+
+}
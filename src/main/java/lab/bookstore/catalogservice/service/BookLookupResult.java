@@ -0,0 +1,12 @@
+package lab.bookstore.catalogservice.service;
+
+import java.util.List;
+
+import lab.bookstore.catalogservice.domain.Book;
+
+/**
+ * Outcome of a batch lookup: the books found, in the order they were asked for, and
+ * the ISBNs that are not in the catalog.
+ */
+public record BookLookupResult(List<Book> books, List<String> missing) {
+}
@@ -1,59 +1,301 @@
 package lab.bookstore.catalogservice.service;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
 
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lab.bookstore.catalogservice.domain.Book;
 import lab.bookstore.catalogservice.domain.BookAlreadyExistsException;
+import lab.bookstore.catalogservice.domain.BookChangeCursor;
+import lab.bookstore.catalogservice.domain.BookField;
+import lab.bookstore.catalogservice.domain.BookFilter;
 import lab.bookstore.catalogservice.domain.BookNotFoundException;
+import lab.bookstore.catalogservice.domain.BookPageCursor;
+import lab.bookstore.catalogservice.domain.BookPatch;
+import lab.bookstore.catalogservice.domain.BookSort;
+import lab.bookstore.catalogservice.domain.BookVersion;
+import lab.bookstore.catalogservice.domain.BookVersionMismatchException;
+import lab.bookstore.catalogservice.domain.CatalogVersion;
 import lab.bookstore.catalogservice.repo.BookRepository;
+import lab.bookstore.catalogservice.service.BookImportResult.BookImportError;
 
+/**
+ * Catalog use cases. Reads that always go to the database run in read-only transactions,
+ * which are served by the read replica when one is configured; the cache-first lookups
+ * leave that to the repository queries behind the cache, so a cache hit never takes a
+ * connection.
+ */
 @Service
 public class BookService {
 
+    static final int IMPORT_BATCH_SIZE = 1000;
+
+    /**
+     * How old a change must be before it is published, so that transactions that took
+     * their timestamp earlier but commit later are not skipped by a cursor that has
+     * already moved past them.
+     */
+    static final Duration CHANGES_SETTLE_TIME = Duration.ofSeconds(5);
+
     private final BookRepository bookRepository;
+    private final BookCache bookCache;
+    private final CatalogAggregates catalogAggregates;
+    private final Validator validator;
 
-    public BookService(BookRepository bookRepository) {
+    public BookService(BookRepository bookRepository, BookCache bookCache, CatalogAggregates catalogAggregates,
+            Validator validator) {
         this.bookRepository = bookRepository;
+        this.bookCache = bookCache;
+        this.catalogAggregates = catalogAggregates;
+        this.validator = validator;
+    }
+
+    @Transactional(readOnly = true)
+    public List<Book> viewBookPage(long after, int limit) {
+        return bookRepository.findPageAfter(after, limit);
     }
 
-    public Iterable<Book> viewBookList() {
-        return bookRepository.findAll();
+    /**
+     * Like {@link #viewBookPage(long, int)}, reading only the given fields of each book.
+     */
+    @Transactional(readOnly = true)
+    public List<Book> viewBookPage(long after, int limit, Set<BookField> fields) {
+        return bookRepository.findPage(BookFilter.NONE, BookSort.BY_ID, new BookPageCursor(String.valueOf(after), after),
+                limit, fields);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Book> viewFilteredBookPage(BookFilter filter, BookSort sort, BookPageCursor after, int limit,
+            Set<BookField> fields) {
+        return bookRepository.findPage(filter, sort, after, limit, fields);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Book> searchBooks(String query, int page, int size) {
+        return bookRepository.search(query, size, (long) page * size);
+    }
+
+    @Transactional(readOnly = true)
+    public void streamBookList(Consumer<Book> action) {
+        try (var books = bookRepository.streamAll()) {
+            books.forEach(action);
+        }
     }
 
     public Book viewBookDetails(String isbn) {
-        return bookRepository.findByIsbn(isbn)
+        return bookCache.get(isbn, bookRepository::findByIsbn)
                 .orElseThrow(() -> new BookNotFoundException(isbn));
     }
 
-    public Book addBookToCatalog(Book book) {
-        if (bookRepository.existsByIsbn(book.isbn())) {
-            throw new BookAlreadyExistsException(book.isbn());
+    /**
+     * Looks up several books at once. Books already cached are not read again and the
+     * others are read with a single query, whatever their number.
+     */
+    public BookLookupResult lookupBooks(Collection<String> isbns) {
+        var distinctIsbns = new LinkedHashSet<>(isbns);
+        var found = bookCache.getAll(distinctIsbns, bookRepository::findAllByIsbn);
+        var books = new ArrayList<Book>(found.size());
+        var missing = new ArrayList<String>();
+        for (var isbn : distinctIsbns) {
+            var book = found.get(isbn);
+            if (book != null) {
+                books.add(book);
+            } else {
+                missing.add(isbn);
+            }
         }
-        return bookRepository.save(book);
+        return new BookLookupResult(books, missing);
+    }
+
+    /**
+     * Returns the version of a book from the cache, or from a query that reads only the
+     * version columns, so conditional requests can be answered without loading the book.
+     */
+    public Optional<BookVersion> viewBookVersion(String isbn) {
+        return bookCache.peek(isbn)
+                .map(BookVersion::of)
+                .or(() -> bookRepository.findVersionByIsbn(isbn));
+    }
+
+    @Transactional(readOnly = true)
+    public BookChangePage viewChangesAfter(BookChangeCursor after, int limit) {
+        var changes = bookRepository.findChangesAfter(after, CHANGES_SETTLE_TIME, limit);
+        var cursor = changes.isEmpty() ? after : changes.get(changes.size() - 1).cursor();
+        return new BookChangePage(changes, cursor.encode(), changes.size() == limit);
+    }
+
+    @Transactional(readOnly = true)
+    public CatalogVersion viewCatalogVersion() {
+        return bookRepository.findCatalogVersion();
+    }
+
+    public CatalogSummary viewCatalogSummary() {
+        return catalogAggregates.summary();
+    }
+
+    public Book addBookToCatalog(Book book) {
+        var savedBook = bookRepository.insertIfAbsent(book)
+                .orElseThrow(() -> new BookAlreadyExistsException(book.isbn()));
+        bookCache.update(savedBook);
+        catalogAggregates.put(savedBook);
+        return savedBook;
     }
 
     public void removeBookFromCatalog(String isbn) {
         bookRepository.deleteByIsbn(isbn);
+        bookCache.invalidate(isbn);
+        catalogAggregates.remove(isbn);
+    }
+
+    /**
+     * Deletes the books with the given ISBNs in one statement; ISBNs that are not in the
+     * catalog are ignored.
+     */
+    public BookDeleteResult removeBooksFromCatalog(Collection<String> isbns) {
+        return removed(bookRepository.deleteAllByIsbn(isbns));
+    }
+
+    /**
+     * Deletes at most {@code limit} of the books meeting the filter in one statement. A
+     * full batch is reported as possibly leaving more, for the caller to repeat.
+     *
+     * @throws IllegalArgumentException if the filter sets no criteria
+     */
+    public BookDeleteResult removeBooksFromCatalog(BookFilter filter, int limit) {
+        var removed = removed(bookRepository.deleteMatching(filter, limit));
+        return new BookDeleteResult(removed.deleted(), removed.isbns(), removed.deleted() == limit);
+    }
+
+    private BookDeleteResult removed(List<String> isbns) {
+        bookCache.invalidateAll(isbns);
+        catalogAggregates.removeAll(isbns);
+        return new BookDeleteResult(isbns.size(), isbns);
     }
 
 	public Book editBookDetails(String isbn, Book book) {
-		return bookRepository.findByIsbn(isbn)
-				.map(existingBook -> {
-					var bookToUpdate = new Book(
-							existingBook.id(),
-							existingBook.isbn(),
-							book.name(),
-							book.author(),
-							book.price(),
-							book.publisher(),
-							existingBook.createdDate(),
-							existingBook.lastModifiedDate(),
-							existingBook.createdBy(),
-							existingBook.lastModifiedBy(),							
-							existingBook.version());
-					return bookRepository.save(bookToUpdate);
-				})
-				.orElseGet(() -> addBookToCatalog(book));
+		var savedBook = bookRepository.upsert(isbn, book);
+		bookCache.update(savedBook);
+		catalogAggregates.put(savedBook);
+		return savedBook;
 	}
 
+    /**
+     * Replaces the book only if it is still at the expected version, or exists at all if
+     * {@code expected} is {@code null}, checking and writing in one statement.
+     *
+     * @throws BookVersionMismatchException if the book was changed or deleted since
+     */
+    public Book editBookDetails(String isbn, Book book, BookVersion expected) {
+        var savedBook = bookRepository.update(isbn, book, expected)
+                .orElseThrow(() -> new BookVersionMismatchException(isbn));
+        return updated(savedBook);
+    }
+
+    /**
+     * Changes the properties the patch sets in one statement, only if the book is still
+     * at the expected version when one is given.
+     *
+     * @throws BookVersionMismatchException if the book was changed or deleted since the
+     * expected version
+     * @throws BookNotFoundException if no version is expected and the book does not exist
+     */
+    public Book patchBookDetails(String isbn, BookPatch patch, BookVersion expected) {
+        var savedBook = bookRepository.patch(isbn, patch, expected)
+                .orElseThrow(() -> expected != null
+                        ? new BookVersionMismatchException(isbn)
+                        : new BookNotFoundException(isbn));
+        return updated(savedBook);
+    }
+
+    private Book updated(Book savedBook) {
+        bookCache.update(savedBook);
+        catalogAggregates.put(savedBook);
+        return savedBook;
+    }
+
+    /**
+     * Validates and inserts the books in batches of {@value #IMPORT_BATCH_SIZE}, skipping
+     * invalid records and ISBNs that already exist in the catalog or earlier in the feed.
+     * A record that cannot be mapped to a book is reported and skipped; a feed that is
+     * not well-formed JSON is reported at the record where it breaks, and the books
+     * before it are still imported.
+     */
+    public BookImportResult importBooks(MappingIterator<Book> books) throws IOException {
+        var imported = 0;
+        var errors = new ArrayList<BookImportError>();
+        var seenIsbns = new HashSet<String>();
+        var batch = new ArrayList<Book>(IMPORT_BATCH_SIZE);
+        var batchIndexes = new ArrayList<Integer>(IMPORT_BATCH_SIZE);
+        for (var index = 0; ; index++) {
+            Book book;
+            try {
+                if (!books.hasNextValue()) {
+                    break;
+                }
+                book = books.nextValue();
+            } catch (JsonParseException ex) {
+                errors.add(new BookImportError(index, null, List.of(ex.getOriginalMessage())));
+                break;
+            } catch (JsonMappingException ex) {
+                // The iterator skips the rest of the record before reading the next one
+                errors.add(new BookImportError(index, null, List.of(ex.getOriginalMessage())));
+                continue;
+            }
+            var violations = validator.validate(book);
+            if (!violations.isEmpty()) {
+                errors.add(new BookImportError(index, book.isbn(),
+                        violations.stream().map(ConstraintViolation::getMessage).sorted().toList()));
+            } else if (!seenIsbns.add(book.isbn())) {
+                errors.add(alreadyExists(index, book.isbn()));
+            } else {
+                batch.add(book);
+                batchIndexes.add(index);
+            }
+            if (batch.size() == IMPORT_BATCH_SIZE) {
+                imported += insertBatch(batch, batchIndexes, errors);
+            }
+        }
+        if (!batch.isEmpty()) {
+            imported += insertBatch(batch, batchIndexes, errors);
+        }
+        errors.sort((left, right) -> Integer.compare(left.index(), right.index()));
+        return new BookImportResult(imported, errors);
+    }
+
+    private int insertBatch(List<Book> batch, List<Integer> batchIndexes, List<BookImportError> errors) {
+        var inserted = 0;
+        var updateCounts = bookRepository.insertAll(batch);
+        for (var i = 0; i < updateCounts.length; i++) {
+            if (updateCounts[i] == 0) {
+                errors.add(alreadyExists(batchIndexes.get(i), batch.get(i).isbn()));
+            } else {
+                catalogAggregates.put(batch.get(i));
+                inserted++;
+            }
+        }
+        batch.clear();
+        batchIndexes.clear();
+        return inserted;
+    }
+
+    private static BookImportError alreadyExists(int index, String isbn) {
+        return new BookImportError(index, isbn, List.of(new BookAlreadyExistsException(isbn).getMessage()));
+    }
+
 }
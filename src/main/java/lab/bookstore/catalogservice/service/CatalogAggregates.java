@@ -0,0 +1,168 @@
+package lab.bookstore.catalogservice.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import lab.bookstore.catalogservice.domain.Book;
+import lab.bookstore.catalogservice.repo.BookRepository;
+import lab.bookstore.catalogservice.service.CatalogSummary.PriceStatistics;
+
+/**
+ * In-memory summary of the catalog, kept up to date by the writes of {@link BookService}
+ * and rebuilt from the database at startup and then periodically, to catch up with the
+ * writes made by other instances.
+ * <p>
+ * Writes that happen while a rebuild reads the catalog are replayed on the rebuilt
+ * summary before it replaces the current one, so they are never lost.
+ * <p>
+ * The rebuild reads from the primary even when a replica is configured: the replayed
+ * writes are only those made during the rebuild, so a replica that lags behind would
+ * silently drop the ones made just before it.
+ */
+@Component
+public class CatalogAggregates {
+
+	private final BookRepository bookRepository;
+	private final Object rebuildLock = new Object();
+	private Aggregates aggregates = new Aggregates();
+	private List<Consumer<Aggregates>> writesDuringRebuild;
+	private volatile CatalogSummary summary;
+
+	public CatalogAggregates(BookRepository bookRepository) {
+		this.bookRepository = bookRepository;
+	}
+
+	/**
+	 * Returns the current summary, computed at most once between two writes.
+	 */
+	public CatalogSummary summary() {
+		var current = summary;
+		if (current != null) {
+			return current;
+		}
+		synchronized (this) {
+			if (summary == null) {
+				summary = aggregates.summarize();
+			}
+			return summary;
+		}
+	}
+
+	public void put(Book book) {
+		write(aggregates -> aggregates.put(book));
+	}
+
+	public void remove(String isbn) {
+		write(aggregates -> aggregates.remove(isbn));
+	}
+
+	public void removeAll(Collection<String> isbns) {
+		write(aggregates -> isbns.forEach(aggregates::remove));
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	@Scheduled(initialDelayString = "${line.catalog-aggregates.rebuild-interval:PT10M}",
+			fixedDelayString = "${line.catalog-aggregates.rebuild-interval:PT10M}")
+	@Transactional
+	public void rebuild() {
+		synchronized (rebuildLock) {
+			synchronized (this) {
+				writesDuringRebuild = new ArrayList<>();
+			}
+			var rebuilt = new Aggregates();
+			try (var books = bookRepository.streamAll()) {
+				books.forEach(rebuilt::put);
+				synchronized (this) {
+					writesDuringRebuild.forEach(write -> write.accept(rebuilt));
+					aggregates = rebuilt;
+					summary = null;
+				}
+			} finally {
+				synchronized (this) {
+					writesDuringRebuild = null;
+				}
+			}
+		}
+	}
+
+	private synchronized void write(Consumer<Aggregates> write) {
+		write.accept(aggregates);
+		if (writesDuringRebuild != null) {
+			writesDuringRebuild.add(write);
+		}
+		summary = null;
+	}
+
+	private record Entry(String publisher, String author, double price) {
+	}
+
+	/**
+	 * The running counts. Prices are kept as a multiset so that the minimum and maximum
+	 * survive the removal of the book that held them.
+	 */
+	private static final class Aggregates {
+
+		private final Map<String, Entry> entries = new HashMap<>();
+		private final Map<String, Long> countByPublisher = new HashMap<>();
+		private final Map<String, Long> countByAuthor = new HashMap<>();
+		private final TreeMap<Double, Long> prices = new TreeMap<>();
+		private double priceSum;
+
+		void put(Book book) {
+			var entry = new Entry(book.publisher(), book.author(), book.price());
+			var previous = entries.put(book.isbn(), entry);
+			if (previous != null) {
+				subtract(previous);
+			}
+			add(entry);
+		}
+
+		void remove(String isbn) {
+			var previous = entries.remove(isbn);
+			if (previous != null) {
+				subtract(previous);
+			}
+		}
+
+		CatalogSummary summarize() {
+			var price = prices.isEmpty() ? null
+					: new PriceStatistics(prices.firstKey(), prices.lastKey(), priceSum / entries.size());
+			return new CatalogSummary(entries.size(), Map.copyOf(countByPublisher), Map.copyOf(countByAuthor), price);
+		}
+
+		private void add(Entry entry) {
+			if (entry.publisher() != null) {
+				countByPublisher.merge(entry.publisher(), 1L, Long::sum);
+			}
+			countByAuthor.merge(entry.author(), 1L, Long::sum);
+			prices.merge(entry.price(), 1L, Long::sum);
+			priceSum += entry.price();
+		}
+
+		private void subtract(Entry entry) {
+			if (entry.publisher() != null) {
+				decrement(countByPublisher, entry.publisher());
+			}
+			decrement(countByAuthor, entry.author());
+			decrement(prices, entry.price());
+			priceSum -= entry.price();
+		}
+
+		private static <K> void decrement(Map<K, Long> counts, K key) {
+			counts.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null);
+		}
+
+	}
+
+}
@@ -0,0 +1,15 @@
+package lab.bookstore.catalogservice.service;
+
+import java.util.Map;
+
+/**
+ * Counts and price statistics over the whole catalog. Books without a publisher are not
+ * counted per publisher, and the price statistics are {@code null} for an empty catalog.
+ */
+public record CatalogSummary(long count, Map<String, Long> countByPublisher, Map<String, Long> countByAuthor,
+		PriceStatistics price) {
+
+	public record PriceStatistics(double min, double max, double average) {
+	}
+
+}
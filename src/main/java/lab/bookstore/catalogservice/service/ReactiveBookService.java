@@ -0,0 +1,110 @@
+package lab.bookstore.catalogservice.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import lab.bookstore.catalogservice.domain.Book;
+import lab.bookstore.catalogservice.domain.BookAlreadyExistsException;
+import lab.bookstore.catalogservice.domain.BookFilter;
+import lab.bookstore.catalogservice.domain.BookNotFoundException;
+import lab.bookstore.catalogservice.domain.BookPageCursor;
+import lab.bookstore.catalogservice.domain.BookPatch;
+import lab.bookstore.catalogservice.domain.BookSort;
+import lab.bookstore.catalogservice.domain.BookVersion;
+import lab.bookstore.catalogservice.domain.BookVersionMismatchException;
+import lab.bookstore.catalogservice.repo.ReactiveBookRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * The catalog use cases of {@link BookService} over R2DBC, for the {@code reactive}
+ * profile. Each use case is a single statement, writes included, so none of them needs a
+ * transaction or races between a check and a write.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveBookService {
+
+    private final ReactiveBookRepository bookRepository;
+
+    public ReactiveBookService(ReactiveBookRepository bookRepository) {
+        this.bookRepository = bookRepository;
+    }
+
+    public Flux<Book> viewBookPage(long after, int limit) {
+        return bookRepository.findPageAfter(after, limit);
+    }
+
+    public Flux<Book> viewFilteredBookPage(BookFilter filter, BookSort sort, BookPageCursor after, int limit) {
+        return bookRepository.findPage(filter, sort, after, limit);
+    }
+
+    public Flux<Book> streamBookList() {
+        return bookRepository.streamAll();
+    }
+
+    public Flux<Book> searchBooks(String query, int page, int size) {
+        return bookRepository.search(query, size, (long) page * size);
+    }
+
+    public Mono<BookLookupResult> lookupBooks(Collection<String> isbns) {
+        var distinctIsbns = new LinkedHashSet<>(isbns);
+        return bookRepository.findByIsbnIn(distinctIsbns)
+                .collectMap(Book::isbn)
+                .map(found -> {
+                    var books = new ArrayList<Book>(found.size());
+                    var missing = new ArrayList<String>();
+                    for (var isbn : distinctIsbns) {
+                        var book = found.get(isbn);
+                        if (book != null) {
+                            books.add(book);
+                        } else {
+                            missing.add(isbn);
+                        }
+                    }
+                    return new BookLookupResult(books, missing);
+                });
+    }
+
+    public Mono<Book> viewBookDetails(String isbn) {
+        return bookRepository.findByIsbn(isbn)
+                .switchIfEmpty(Mono.error(() -> new BookNotFoundException(isbn)));
+    }
+
+    public Mono<Book> addBookToCatalog(Book book) {
+        return bookRepository.insertIfAbsent(book)
+                .switchIfEmpty(Mono.error(() -> new BookAlreadyExistsException(book.isbn())));
+    }
+
+    public Mono<Void> removeBookFromCatalog(String isbn) {
+        return bookRepository.deleteByIsbn(isbn).then();
+    }
+
+    public Mono<Book> editBookDetails(String isbn, Book book) {
+        return bookRepository.upsert(isbn, book);
+    }
+
+    /**
+     * Updates the book only if it is still at the expected version.
+     */
+    public Mono<Book> editBookDetails(String isbn, Book book, BookVersion expected) {
+        return bookRepository.update(isbn, book, expected)
+                .switchIfEmpty(Mono.error(() -> new BookVersionMismatchException(isbn)));
+    }
+
+    /**
+     * Changes the properties the patch sets, only if the book is still at the expected
+     * version when one is given.
+     */
+    public Mono<Book> patchBookDetails(String isbn, BookPatch patch, BookVersion expected) {
+        return bookRepository.patch(isbn, patch, expected)
+                .switchIfEmpty(Mono.error(() -> expected != null
+                        ? new BookVersionMismatchException(isbn)
+                        : new BookNotFoundException(isbn)));
+    }
+
+}
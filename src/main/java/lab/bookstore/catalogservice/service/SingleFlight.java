@@ -0,0 +1,69 @@
+package lab.bookstore.catalogservice.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Runs at most one load per key at a time: callers asking for a key that is already
+ * being loaded wait for that load and share its result, or its exception, instead of
+ * starting their own.
+ */
+class SingleFlight<K, V> {
+
+	private final ConcurrentMap<K, CompletableFuture<V>> flights = new ConcurrentHashMap<>();
+	private final LongAdder coalesced = new LongAdder();
+
+	V load(K key, Function<K, V> loader) {
+		var flight = new CompletableFuture<V>();
+		var inFlight = flights.putIfAbsent(key, flight);
+		if (inFlight != null) {
+			coalesced.increment();
+			return join(inFlight);
+		}
+		try {
+			var value = loader.apply(key);
+			flight.complete(value);
+			return value;
+		} catch (RuntimeException | Error ex) {
+			flight.completeExceptionally(ex);
+			throw ex;
+		} finally {
+			flights.remove(key, flight);
+		}
+	}
+
+	/**
+	 * Lets the next caller for the key start a new load, rather than join one that may
+	 * have read data older than a write that just happened. Callers already waiting
+	 * still get the result of the current load.
+	 */
+	void forget(K key) {
+		flights.remove(key);
+	}
+
+	/**
+	 * Returns how many callers shared another caller's load so far.
+	 */
+	long coalesced() {
+		return coalesced.sum();
+	}
+
+	private static <V> V join(CompletableFuture<V> flight) {
+		try {
+			return flight.join();
+		} catch (CompletionException ex) {
+			if (ex.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			if (ex.getCause() instanceof Error cause) {
+				throw cause;
+			}
+			throw ex;
+		}
+	}
+
+}
@@ -1,46 +1,287 @@
 package lab.bookstore.catalogservice.web;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Set;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 
 import jakarta.validation.Valid;
 import lab.bookstore.catalogservice.domain.Book;
+import lab.bookstore.catalogservice.domain.BookChangeCursor;
+import lab.bookstore.catalogservice.domain.BookField;
+import lab.bookstore.catalogservice.domain.BookFilter;
+import lab.bookstore.catalogservice.domain.BookPageCursor;
+import lab.bookstore.catalogservice.domain.BookPatch;
+import lab.bookstore.catalogservice.domain.BookSort;
+import lab.bookstore.catalogservice.domain.BookVersion;
+import lab.bookstore.catalogservice.domain.BookVersionMismatchException;
+import lab.bookstore.catalogservice.service.BookChangePage;
+import lab.bookstore.catalogservice.service.BookDeleteResult;
+import lab.bookstore.catalogservice.service.BookImportResult;
+import lab.bookstore.catalogservice.service.BookLookupResult;
 import lab.bookstore.catalogservice.service.BookService;
+import lab.bookstore.catalogservice.service.CatalogSummary;
+import lab.bookstore.catalogservice.web.BookResponseCache.SerializedBody;
 
 @RestController
 @RequestMapping("books")
+@Profile("!reactive")
 public class BookController {
 
 	private static final Logger log = LoggerFactory.getLogger(BookController.class);
+	static final int MAX_PAGE_SIZE = 1000;
+	static final int MAX_SEARCH_PAGE_SIZE = 100;
+	static final int MAX_LOOKUP_SIZE = 100;
+	static final int MAX_CHANGES_PAGE_SIZE = 1000;
+	static final int MAX_DELETE_SIZE = 1000;
+	static final String MERGE_PATCH_JSON_VALUE = "application/merge-patch+json";
 	@Autowired
 	private BookService bookService;
+	@Autowired
+	private ObjectMapper objectMapper;
+	@Autowired
+	private BookResponseCache responseCache;
 
+    /**
+     * Returns one keyset page of the catalog in id order. {@code after} is the id of the
+     * last book already seen; the URI of the next page is sent in the {@code Link} header
+     * for as long as pages come back full. The page is tagged with the version of the
+     * whole catalog, so an unchanged catalog is answered with 304 before reading the page,
+     * and the serialized page is cached under that tag.
+     * <p>
+     * With filter criteria (author, publisher, minPrice, maxPrice, modifiedSince) or a
+     * {@code sort} such as {@code -price}, pages are read by {@link #getFiltered} instead.
+     * With {@code fields}, such as {@code isbn,name,price}, only those columns are read and
+     * written.
+     */
     @GetMapping
-    public Iterable<Book> get() {
-    	log.info("Fetching the list of books in the catalog");
-        return bookService.viewBookList();
+    public ResponseEntity<byte[]> get(@RequestParam(name = "after", defaultValue = "0") long after,
+    		@RequestParam(name = "limit", defaultValue = "100") int limit, BookFilter filter,
+    		@RequestParam(name = "sort", required = false) String sort,
+    		@RequestParam(name = "cursor", required = false) String cursor,
+    		@RequestParam(name = "fields", required = false) String fields, WebRequest request) {
+    	var pageSize = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+    	var bookFields = parseFields(fields);
+    	if (!filter.isEmpty() || sort != null || cursor != null) {
+    		return getFiltered(filter, sort, cursor, pageSize, bookFields, request);
+    	}
+    	log.info("Fetching the page of books in the catalog after id {}", after);
+    	var catalogVersion = bookService.viewCatalogVersion();
+    	var acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+    	var eTag = BookETags.ofPage(catalogVersion, after, pageSize, bookFields);
+    	if (request.checkNotModified(BookETags.forEncoding(eTag, acceptEncoding))) {
+    		return null;
+    	}
+    	var body = responseCache.getPage(eTag, () -> bookFields.equals(BookField.ALL)
+    			? bookService.viewBookPage(after, pageSize)
+    			: bookService.viewBookPage(after, pageSize, bookFields), pageSize, bookFields);
+    	var response = ResponseEntity.ok().eTag(BookETags.forEncoding(eTag, acceptEncoding));
+    	if (body.nextAfter() != null) {
+    		var next = ServletUriComponentsBuilder.fromCurrentRequest()
+    				.replaceQueryParam("after", body.nextAfter())
+    				.replaceQueryParam("limit", pageSize)
+    				.toUriString();
+    		response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+    	}
+    	return responseCache.body(response, body, request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+    }
+
+    /**
+     * Returns one keyset page of the books meeting the filter, in the requested order. The
+     * position to resume from travels as an opaque {@code cursor} in the {@code Link}
+     * header of full pages. Filtered pages are not cached: their combinations are too
+     * many to be worth the memory.
+     */
+    private ResponseEntity<byte[]> getFiltered(BookFilter filter, String sort, String cursor, int pageSize,
+    		Set<BookField> fields, WebRequest request) {
+    	log.info("Fetching a page of books in the catalog matching {} sorted by {}", filter, sort);
+    	BookSort bookSort;
+    	BookPageCursor after;
+    	List<Book> books;
+    	try {
+    		bookSort = sort != null ? BookSort.parse(sort) : BookSort.BY_ID;
+    		after = cursor != null ? BookPageCursor.decode(cursor, bookSort, filter) : null;
+    		books = bookService.viewFilteredBookPage(filter, bookSort, after, pageSize, fields);
+    	} catch (IllegalArgumentException ex) {
+    		throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The sort order or page cursor is not valid.", ex);
+    	}
+    	var response = ResponseEntity.ok();
+    	if (books.size() == pageSize) {
+    		var next = ServletUriComponentsBuilder.fromCurrentRequest()
+    				.replaceQueryParam("cursor", BookPageCursor.after(books.get(books.size() - 1), bookSort).encode(bookSort, filter))
+    				.replaceQueryParam("limit", pageSize)
+    				.toUriString();
+    		response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+    	}
+    	return responseCache.body(response, responseCache.serialize(BookResponseCache.view(books, fields)),
+    			request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+    }
+
+    /**
+     * Looks up the books with the given ISBNs, e.g. {@code ?isbn=a,b,c}, in one round
+     * trip. ISBNs that are not in the catalog are listed as missing rather than failing
+     * the request.
+     */
+    @GetMapping(params = "isbn")
+    public BookLookupResult lookup(@RequestParam("isbn") List<String> isbns) {
+    	log.info("Looking up {} books in the catalog", isbns.size());
+    	var distinctIsbns = isbns.stream().map(String::trim).filter(isbn -> !isbn.isEmpty()).distinct().toList();
+    	if (distinctIsbns.size() > MAX_LOOKUP_SIZE) {
+    		throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+    				"At most " + MAX_LOOKUP_SIZE + " ISBNs can be looked up at once.");
+    	}
+    	return bookService.lookupBooks(distinctIsbns);
+    }
+
+    /**
+     * Streams the whole catalog as newline-delimited JSON, writing each row as it comes
+     * off the database cursor.
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> stream() {
+    	log.info("Streaming the list of books in the catalog");
+    	var writer = objectMapper.writerFor(Book.class)
+    			.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+    			.withRootValueSeparator("\n");
+    	StreamingResponseBody body = outputStream -> {
+    		try (var books = writer.writeValues(outputStream)) {
+    			bookService.streamBookList(book -> {
+    				try {
+    					books.write(book);
+    				} catch (IOException ex) {
+    					throw new UncheckedIOException(ex);
+    				}
+    			});
+    		}
+    	};
+    	return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * Returns book counts per publisher and per author and price statistics, read from a
+     * summary kept in memory rather than computed over the catalog.
+     */
+    @GetMapping("aggregates")
+    public CatalogSummary aggregates() {
+    	log.info("Fetching the catalog aggregates");
+    	return bookService.viewCatalogSummary();
+    }
+
+    /**
+     * Returns the books matching a search over name, author and publisher, best matches
+     * first, one page at a time.
+     */
+    @GetMapping("search")
+    public ResponseEntity<List<Book>> search(@RequestParam("q") String query,
+    		@RequestParam(name = "page", defaultValue = "0") int page,
+    		@RequestParam(name = "size", defaultValue = "20") int size) {
+    	log.info("Searching the catalog for \"{}\"", query);
+    	var pageSize = Math.min(Math.max(size, 1), MAX_SEARCH_PAGE_SIZE);
+    	var pageNumber = Math.max(page, 0);
+    	if (query.isBlank()) {
+    		return ResponseEntity.ok(List.of());
+    	}
+    	var books = bookService.searchBooks(query, pageNumber, pageSize);
+    	var response = ResponseEntity.ok();
+    	if (books.size() == pageSize) {
+    		var next = ServletUriComponentsBuilder.fromCurrentRequest()
+    				.replaceQueryParam("page", pageNumber + 1)
+    				.replaceQueryParam("size", pageSize)
+    				.toUriString();
+    		response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+    	}
+    	return response.body(books);
     }
 
+    /**
+     * Returns the books added, updated and deleted since the cursor of the previous call,
+     * oldest first; without a cursor the feed starts from the beginning. Mirrors keep the
+     * returned cursor and call again, right away while {@code hasMore} is true.
+     */
+    @GetMapping("changes")
+    public BookChangePage changes(@RequestParam(name = "since", required = false) String since,
+    		@RequestParam(name = "limit", defaultValue = "100") int limit) {
+    	log.info("Fetching the changes to the catalog since {}", since);
+    	var pageSize = Math.min(Math.max(limit, 1), MAX_CHANGES_PAGE_SIZE);
+    	BookChangeCursor cursor;
+    	try {
+    		cursor = since != null ? BookChangeCursor.decode(since) : BookChangeCursor.START;
+    	} catch (IllegalArgumentException ex) {
+    		throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The change cursor is not valid.", ex);
+    	}
+    	return bookService.viewChangesAfter(cursor, pageSize);
+    }
+
+    /**
+     * Returns the book tagged with its version and last modification date. Conditional
+     * requests are validated against the version alone and answered with 304 without
+     * loading the book; otherwise the body is served from the serialized response cache.
+     * With {@code fields}, only those fields are written, and read if the book is not
+     * cached.
+     */
     @GetMapping("{isbn}")
-	public Book getByIsbn(@PathVariable("isbn") String isbn) {
+	public ResponseEntity<byte[]> getByIsbn(@PathVariable("isbn") String isbn,
+			@RequestParam(name = "fields", required = false) String fields, WebRequest request) {
     	/* test resilience
     	try {
 			Thread.sleep(1000 * 30);
 		} catch (InterruptedException e) {}
 		*/
     	log.info("Fetching the book with ISBN {} from the catalog", isbn);
-        return bookService.viewBookDetails(isbn);
+    	var bookFields = parseFields(fields);
+    	var acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+    	if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+    			|| request.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null) {
+    		var version = bookService.viewBookVersion(isbn);
+    		if (version.isPresent() && request.checkNotModified(
+    				BookETags.forEncoding(BookETags.of(version.get(), bookFields), acceptEncoding),
+    				lastModified(version.get()))) {
+    			return null;
+    		}
+    	}
+    	var book = bookService.viewBookDetails(isbn);
+    	var response = ResponseEntity.ok();
+    	if (book.lastModifiedDate() != null) {
+    		response.lastModified(book.lastModifiedDate());
+    	}
+    	SerializedBody body;
+    	if (book.id() != null) {
+    		var eTag = BookETags.of(BookVersion.of(book), bookFields);
+    		response.eTag(BookETags.forEncoding(eTag, acceptEncoding));
+    		body = responseCache.get(eTag, () -> BookResponseCache.view(book, bookFields));
+    	} else {
+    		body = responseCache.serialize(BookResponseCache.view(book, bookFields));
+    	}
+    	return responseCache.body(response, body, acceptEncoding);
     }
 
     @PostMapping
@@ -50,6 +291,46 @@ public class BookController {
         return bookService.addBookToCatalog(book);
     }
 
+    /**
+     * Imports a feed of books given either as a JSON array or as newline-delimited JSON.
+     * The body is read record by record, so the feed is never held in memory as a whole,
+     * and records that cannot be read are reported in the result like invalid ones.
+     */
+    @PostMapping(path = "import", consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+    public BookImportResult importBooks(InputStream body) throws IOException {
+    	log.info("Importing a feed of books into the catalog");
+    	try (var books = objectMapper.readerFor(Book.class).<Book>readValues(body)) {
+    		return bookService.importBooks(books);
+    	}
+    }
+
+    /**
+     * Deletes either the books with the given ISBNs, e.g. {@code ?isbn=a,b,c}, or those
+     * meeting the filter criteria, e.g. {@code ?publisher=GoTop}, in one statement, and
+     * reports which were deleted. A request with neither, or both, is rejected rather
+     * than read as "delete everything". A filter deletes at most
+     * {@value #MAX_DELETE_SIZE} books per request, and says when more may remain.
+     */
+    @DeleteMapping
+    public BookDeleteResult deleteAll(@RequestParam(name = "isbn", required = false) List<String> isbns,
+    		BookFilter filter) {
+    	if ((isbns == null) == filter.isEmpty()) {
+    		throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+    				"Books are deleted either by ISBN or by filter criteria.");
+    	}
+    	if (isbns == null) {
+    		log.info("Deleting the books in the catalog matching {}", filter);
+    		return bookService.removeBooksFromCatalog(filter, MAX_DELETE_SIZE);
+    	}
+    	var distinctIsbns = isbns.stream().map(String::trim).filter(isbn -> !isbn.isEmpty()).distinct().toList();
+    	if (distinctIsbns.size() > MAX_DELETE_SIZE) {
+    		throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+    				"At most " + MAX_DELETE_SIZE + " ISBNs can be deleted at once.");
+    	}
+    	log.info("Deleting {} books from the catalog", distinctIsbns.size());
+    	return bookService.removeBooksFromCatalog(distinctIsbns);
+    }
+
     @DeleteMapping("{isbn}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
 	public void delete(@PathVariable("isbn") String isbn) {
@@ -57,10 +338,60 @@ public class BookController {
         bookService.removeBookFromCatalog(isbn);
     }
 
+    /**
+     * Updates the book, or creates it if it does not exist. With {@code If-Match}, the
+     * book must exist and still be at the tagged version, or 412 is returned; the check
+     * and the update are one statement.
+     */
     @PutMapping("{isbn}")
-	public Book put(@PathVariable("isbn") String isbn, @Valid @RequestBody Book book) {
+	public ResponseEntity<Book> put(@PathVariable("isbn") String isbn, @Valid @RequestBody Book book,
+			@RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
     	log.info("Updating book with ISBN {}", isbn);
-        return bookService.editBookDetails(isbn, book);
+    	var savedBook = ifMatch != null
+    			? bookService.editBookDetails(isbn, book, expectedVersion(isbn, ifMatch))
+    			: bookService.editBookDetails(isbn, book);
+    	return ResponseEntity.ok().eTag(BookETags.of(BookVersion.of(savedBook))).body(savedBook);
+    }
+
+    /**
+     * Changes only the properties present in the body, removing the publisher when it is
+     * {@code null}. A patch that changes nothing is rejected rather than bumping the
+     * version. With {@code If-Match}, the book must still be at the tagged version, or
+     * 412 is returned.
+     */
+    @PatchMapping(path = "{isbn}", consumes = { MediaType.APPLICATION_JSON_VALUE, MERGE_PATCH_JSON_VALUE })
+	public ResponseEntity<Book> patch(@PathVariable("isbn") String isbn, @Valid @RequestBody BookPatch patch,
+			@RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    	log.info("Patching book with ISBN {}", isbn);
+    	if (patch.isEmpty()) {
+    		throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The patch changes no property.");
+    	}
+    	var savedBook = bookService.patchBookDetails(isbn, patch, ifMatch != null ? expectedVersion(isbn, ifMatch) : null);
+    	return ResponseEntity.ok().eTag(BookETags.of(BookVersion.of(savedBook))).body(savedBook);
+    }
+
+    static Set<BookField> parseFields(String fields) {
+    	try {
+    		return fields != null ? BookField.parse(fields) : BookField.ALL;
+    	} catch (IllegalArgumentException ex) {
+    		throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The requested fields are not valid.", ex);
+    	}
+    }
+
+    /**
+     * The version a single {@code If-Match} tag asks for, or {@code null} for {@code *}. A
+     * tag that was not issued for a book can match no version.
+     */
+    static BookVersion expectedVersion(String isbn, String ifMatch) {
+    	var eTag = ifMatch.trim();
+    	if (eTag.equals("*")) {
+    		return null;
+    	}
+    	return BookETags.parse(eTag).orElseThrow(() -> new BookVersionMismatchException(isbn));
+    }
+
+    private static long lastModified(BookVersion version) {
+    	return version.lastModifiedDate() != null ? version.lastModifiedDate().toEpochMilli() : -1;
     }
 
 }
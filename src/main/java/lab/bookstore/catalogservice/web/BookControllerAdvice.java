@@ -5,34 +5,81 @@ import java.util.Map;
 
 import lab.bookstore.catalogservice.domain.BookAlreadyExistsException;
 import lab.bookstore.catalogservice.domain.BookNotFoundException;
+import lab.bookstore.catalogservice.domain.BookVersionMismatchException;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ServerWebInputException;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 
 @RestControllerAdvice
 public class BookControllerAdvice {
 
+	private final Counter notFound;
+	private final Counter alreadyExists;
+	private final Counter preconditionFailed;
+	private final Counter invalid;
+	private final Counter malformed;
+
+	public BookControllerAdvice(MeterRegistry meterRegistry) {
+		this.notFound = errorCounter(meterRegistry, "not_found");
+		this.alreadyExists = errorCounter(meterRegistry, "already_exists");
+		this.preconditionFailed = errorCounter(meterRegistry, "precondition_failed");
+		this.invalid = errorCounter(meterRegistry, "invalid");
+		this.malformed = errorCounter(meterRegistry, "malformed");
+	}
+
     @ExceptionHandler(BookNotFoundException.class)
     @ResponseStatus(HttpStatus.NOT_FOUND)
 	public String bookNotFoundHandler(BookNotFoundException ex) {
+    	notFound.increment();
         return ex.getMessage();
     }
 
     @ExceptionHandler(BookAlreadyExistsException.class)
     @ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
 	public String bookAlreadyExistsHandler(BookAlreadyExistsException ex) {
+    	alreadyExists.increment();
+        return ex.getMessage();
+    }
+
+    @ExceptionHandler(BookVersionMismatchException.class)
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+	public String bookVersionMismatchHandler(BookVersionMismatchException ex) {
+    	preconditionFailed.increment();
         return ex.getMessage();
     }
 
 	@ExceptionHandler(MethodArgumentNotValidException.class)
 	@ResponseStatus(HttpStatus.BAD_REQUEST)
 	public Map<String, String> handleValidationExceptions(MethodArgumentNotValidException ex) {
+		return fieldErrors(ex.getBindingResult());
+	}
+
+	/**
+	 * The WebFlux flavor of {@link #handleValidationExceptions}, for the reactive profile.
+	 */
+	@ExceptionHandler(WebExchangeBindException.class)
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	public Map<String, String> handleWebExchangeValidationExceptions(WebExchangeBindException ex) {
+		return fieldErrors(ex.getBindingResult());
+	}
+
+	private Map<String, String> fieldErrors(BindingResult bindingResult) {
+		invalid.increment();
 		var errors = new HashMap<String, String>();
-		ex.getBindingResult().getAllErrors().forEach(error -> {
+		bindingResult.getAllErrors().forEach(error -> {
 			String fieldName = ((FieldError) error).getField();
 			String errorMessage = error.getDefaultMessage();
 			errors.put(fieldName, errorMessage);
@@ -40,4 +87,46 @@ public class BookControllerAdvice {
 		return errors;
 	}
 
+	@ExceptionHandler(JsonProcessingException.class)
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	public String malformedJsonHandler(JsonProcessingException ex) {
+		malformed.increment();
+		return ex.getOriginalMessage();
+	}
+
+	/**
+	 * Answers a body that a domain type refused to be read from, such as a patch of a
+	 * property that cannot change, with the reason it gave. Any other unreadable body is
+	 * rethrown and left to the default handling.
+	 */
+	@ExceptionHandler(HttpMessageNotReadableException.class)
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	public String unreadableBodyHandler(HttpMessageNotReadableException ex) {
+		return refusedBodyMessage(ex, ex.getMostSpecificCause());
+	}
+
+	/**
+	 * The WebFlux flavor of {@link #unreadableBodyHandler}, for the reactive profile.
+	 */
+	@ExceptionHandler(ServerWebInputException.class)
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	public String serverWebInputHandler(ServerWebInputException ex) {
+		return refusedBodyMessage(ex, ex.getMostSpecificCause());
+	}
+
+	private <E extends Exception> String refusedBodyMessage(E ex, Throwable cause) throws E {
+		if (!(cause instanceof IllegalArgumentException refused)) {
+			throw ex;
+		}
+		malformed.increment();
+		return refused.getMessage();
+	}
+
+	private static Counter errorCounter(MeterRegistry meterRegistry, String outcome) {
+		return Counter.builder("catalog.errors")
+				.description("Catalog requests rejected by the error handlers")
+				.tag("outcome", outcome)
+				.register(meterRegistry);
+	}
+
 }
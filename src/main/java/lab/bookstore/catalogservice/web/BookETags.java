@@ -0,0 +1,81 @@
+package lab.bookstore.catalogservice.web;
+
+import java.util.Optional;
+import java.util.Set;
+
+import lab.bookstore.catalogservice.domain.BookField;
+import lab.bookstore.catalogservice.domain.BookVersion;
+import lab.bookstore.catalogservice.domain.CatalogVersion;
+
+/**
+ * Builds the strong entity tags of the book resources. A book's tag includes its id as
+ * well as its version, so a book deleted and created again under the same ISBN does not
+ * match tags issued for the old one. Responses holding only some fields of the books are
+ * tagged apart from the full ones, and gzipped responses apart from identity ones.
+ */
+final class BookETags {
+
+	private static final String GZIP_SUFFIX = "-gz";
+
+	private BookETags() {
+	}
+
+	static String of(BookVersion version) {
+		return of(version, BookField.ALL);
+	}
+
+	static String of(BookVersion version, Set<BookField> fields) {
+		return "\"" + version.id() + "." + version.version() + fieldsSuffix(fields) + "\"";
+	}
+
+	/**
+	 * Reads the id and version back from a book's tag, whatever fields it was issued for.
+	 *
+	 * @return empty for a weak tag or one not issued for a book
+	 */
+	static Optional<BookVersion> parse(String eTag) {
+		if (eTag.length() < 2 || !eTag.startsWith("\"") || !eTag.endsWith("\"")) {
+			return Optional.empty();
+		}
+		var value = eTag.substring(1, eTag.length() - 1);
+		if (value.endsWith(GZIP_SUFFIX)) {
+			value = value.substring(0, value.length() - GZIP_SUFFIX.length());
+		}
+		var suffix = value.indexOf('+');
+		if (suffix >= 0) {
+			value = value.substring(0, suffix);
+		}
+		var dot = value.indexOf('.');
+		try {
+			return dot < 0 ? Optional.empty() : Optional.of(new BookVersion(Long.parseLong(value.substring(0, dot)),
+					Integer.parseInt(value.substring(dot + 1)), null));
+		} catch (NumberFormatException ex) {
+			return Optional.empty();
+		}
+	}
+
+	static String ofPage(CatalogVersion catalog, long after, int limit) {
+		return ofPage(catalog, after, limit, BookField.ALL);
+	}
+
+	static String ofPage(CatalogVersion catalog, long after, int limit, Set<BookField> fields) {
+		return "\"c" + Long.toHexString(catalog.version()) + "-" + after + "-" + limit + fieldsSuffix(fields) + "\"";
+	}
+
+	/**
+	 * Returns the tag of the representation sent to a client with the given
+	 * {@code Accept-Encoding}. A strong tag promises the same bytes, so clients that accept
+	 * gzip get a tag of their own; they get it for bodies too small to be compressed as
+	 * well, so that the tag is known before the body is.
+	 */
+	static String forEncoding(String eTag, String acceptEncoding) {
+		return BookResponseCache.acceptsGzip(acceptEncoding)
+				? eTag.substring(0, eTag.length() - 1) + GZIP_SUFFIX + "\""
+				: eTag;
+	}
+
+	private static String fieldsSuffix(Set<BookField> fields) {
+		return fields.equals(BookField.ALL) ? "" : "+" + Integer.toHexString(BookField.mask(fields));
+	}
+
+}
@@ -0,0 +1,148 @@
+package lab.bookstore.catalogservice.web;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.ResponseEntity.BodyBuilder;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lab.bookstore.catalogservice.config.BookCacheProperties;
+import lab.bookstore.catalogservice.domain.Book;
+import lab.bookstore.catalogservice.domain.BookField;
+
+/**
+ * Cache of serialized response bodies, keyed by the entity tag of the response. Tags
+ * change with the version of the rows behind them, so a write never needs to evict
+ * anything: stale bodies are no longer asked for and age out of the cache.
+ * <p>
+ * Bodies of at least {@value #MIN_COMPRESSED_SIZE} bytes are also kept gzipped, and
+ * sent that way to clients that accept it.
+ */
+@Component
+class BookResponseCache {
+
+	static final int MIN_COMPRESSED_SIZE = 1024;
+
+	private final Cache<String, SerializedBody> cache;
+	private final ObjectMapper objectMapper;
+
+	BookResponseCache(ObjectMapper objectMapper, ObjectProvider<BookCacheProperties> properties,
+			MeterRegistry meterRegistry) {
+		this.objectMapper = objectMapper;
+		this.cache = Caffeine.newBuilder()
+				.maximumWeight(properties.getIfAvailable(BookCacheProperties::new).getResponseCacheSize().toBytes())
+				.<String, SerializedBody>weigher((eTag, body) -> body.size())
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, cache, "book-responses");
+	}
+
+	/**
+	 * Returns the body cached under the tag, or serializes and caches the given value.
+	 * The value is only computed on a miss.
+	 */
+	SerializedBody get(String eTag, Supplier<?> value) {
+		return cache.get(eTag, key -> serialize(value.get(), null));
+	}
+
+	/**
+	 * Serializes a value that has no tag to be cached under.
+	 */
+	SerializedBody serialize(Object value) {
+		return serialize(value, null);
+	}
+
+	/**
+	 * Like {@link #get}, for a keyset page of books, also remembering the id after which
+	 * the next page starts when the page came back full. Only the given fields of the
+	 * books are written.
+	 */
+	SerializedBody getPage(String eTag, Supplier<List<Book>> page, int pageSize, Set<BookField> fields) {
+		return cache.get(eTag, key -> {
+			var books = page.get();
+			var nextAfter = books.size() == pageSize ? books.get(books.size() - 1).id() : null;
+			return serialize(view(books, fields), nextAfter);
+		});
+	}
+
+	/**
+	 * Returns the books as written to clients asking for the given fields.
+	 */
+	static Object view(List<Book> books, Set<BookField> fields) {
+		return fields.equals(BookField.ALL) ? books
+				: books.stream().map(book -> BookField.project(book, fields)).toList();
+	}
+
+	static Object view(Book book, Set<BookField> fields) {
+		return fields.equals(BookField.ALL) ? book : BookField.project(book, fields);
+	}
+
+	/**
+	 * Completes the response with the body, gzipped if the client accepts it.
+	 */
+	ResponseEntity<byte[]> body(BodyBuilder response, SerializedBody body, String acceptEncoding) {
+		response.contentType(MediaType.APPLICATION_JSON).header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+		if (body.gzip() != null && acceptsGzip(acceptEncoding)) {
+			return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(body.gzip());
+		}
+		return response.body(body.json());
+	}
+
+	private SerializedBody serialize(Object value, Long nextAfter) {
+		try {
+			var json = objectMapper.writeValueAsBytes(value);
+			return new SerializedBody(json, json.length >= MIN_COMPRESSED_SIZE ? gzip(json) : null, nextAfter);
+		} catch (JsonProcessingException ex) {
+			throw new IllegalStateException("Failed to serialize the response body", ex);
+		}
+	}
+
+	private static byte[] gzip(byte[] bytes) {
+		var compressed = new ByteArrayOutputStream(bytes.length / 4);
+		try (var gzip = new GZIPOutputStream(compressed)) {
+			gzip.write(bytes);
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+		return compressed.toByteArray();
+	}
+
+	static boolean acceptsGzip(String acceptEncoding) {
+		if (acceptEncoding == null) {
+			return false;
+		}
+		for (var coding : acceptEncoding.split(",")) {
+			var parameters = coding.split(";");
+			var name = parameters[0].trim();
+			if (name.equalsIgnoreCase("gzip") || name.equals("*")) {
+				return parameters.length < 2 || !parameters[1].trim().matches("q=0(\\.0*)?");
+			}
+		}
+		return false;
+	}
+
+	record SerializedBody(byte[] json, byte[] gzip, Long nextAfter) {
+
+		int size() {
+			return json.length + (gzip != null ? gzip.length : 0);
+		}
+
+	}
+
+}
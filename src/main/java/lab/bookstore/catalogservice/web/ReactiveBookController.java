@@ -0,0 +1,222 @@
+package lab.bookstore.catalogservice.web;
+
+import java.util.List;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import jakarta.validation.Valid;
+import lab.bookstore.catalogservice.domain.Book;
+import lab.bookstore.catalogservice.domain.BookField;
+import lab.bookstore.catalogservice.domain.BookFilter;
+import lab.bookstore.catalogservice.domain.BookPageCursor;
+import lab.bookstore.catalogservice.domain.BookPatch;
+import lab.bookstore.catalogservice.domain.BookSort;
+import lab.bookstore.catalogservice.domain.BookVersion;
+import lab.bookstore.catalogservice.service.BookLookupResult;
+import lab.bookstore.catalogservice.service.ReactiveBookService;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * The routes of {@link BookController} on WebFlux, for the {@code reactive} profile.
+ * Bulk import and deletion, the changes feed and the aggregates are only served by the
+ * servlet stack, and pages are not cached or gzipped here.
+ */
+@RestController
+@RequestMapping("books")
+@Profile("reactive")
+public class ReactiveBookController {
+
+	private static final Logger log = LoggerFactory.getLogger(ReactiveBookController.class);
+	private final ReactiveBookService bookService;
+
+	public ReactiveBookController(ReactiveBookService bookService) {
+		this.bookService = bookService;
+	}
+
+    /**
+     * Returns one keyset page of the catalog in id order, or of the books meeting the
+     * filter in the requested order, linking the next page in the {@code Link} header
+     * for as long as pages come back full.
+     */
+    @GetMapping
+    public Mono<ResponseEntity<Object>> get(@RequestParam(name = "after", defaultValue = "0") long after,
+    		@RequestParam(name = "limit", defaultValue = "100") int limit, BookFilter filter,
+    		@RequestParam(name = "sort", required = false) String sort,
+    		@RequestParam(name = "cursor", required = false) String cursor,
+    		@RequestParam(name = "fields", required = false) String fields, ServerHttpRequest request) {
+    	var pageSize = Math.min(Math.max(limit, 1), BookController.MAX_PAGE_SIZE);
+    	var bookFields = BookController.parseFields(fields);
+    	if (!filter.isEmpty() || sort != null || cursor != null) {
+    		return getFiltered(filter, sort, cursor, pageSize, bookFields, request);
+    	}
+    	log.info("Fetching the page of books in the catalog after id {}", after);
+    	return bookService.viewBookPage(after, pageSize).collectList().map(books -> {
+    		var response = ResponseEntity.ok();
+    		if (books.size() == pageSize) {
+    			var next = UriComponentsBuilder.fromUri(request.getURI())
+    					.replaceQueryParam("after", books.get(books.size() - 1).id())
+    					.replaceQueryParam("limit", pageSize)
+    					.toUriString();
+    			response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+    		}
+    		return response.body(BookResponseCache.view(books, bookFields));
+    	});
+    }
+
+    private Mono<ResponseEntity<Object>> getFiltered(BookFilter filter, String sort, String cursor, int pageSize,
+    		Set<BookField> fields, ServerHttpRequest request) {
+    	log.info("Fetching a page of books in the catalog matching {} sorted by {}", filter, sort);
+    	BookSort bookSort;
+    	BookPageCursor after;
+    	try {
+    		bookSort = sort != null ? BookSort.parse(sort) : BookSort.BY_ID;
+    		after = cursor != null ? BookPageCursor.decode(cursor, bookSort, filter) : null;
+    	} catch (IllegalArgumentException ex) {
+    		return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+    				"The sort order or page cursor is not valid.", ex));
+    	}
+    	return bookService.viewFilteredBookPage(filter, bookSort, after, pageSize).collectList().map(books -> {
+    		var response = ResponseEntity.ok();
+    		if (books.size() == pageSize) {
+    			var next = UriComponentsBuilder.fromUri(request.getURI())
+    					.replaceQueryParam("cursor", BookPageCursor.after(books.get(books.size() - 1), bookSort)
+    							.encode(bookSort, filter))
+    					.replaceQueryParam("limit", pageSize)
+    					.toUriString();
+    			response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+    		}
+    		return response.body(BookResponseCache.view(books, fields));
+    	});
+    }
+
+    @GetMapping(params = "isbn")
+    public Mono<BookLookupResult> lookup(@RequestParam("isbn") List<String> isbns) {
+    	log.info("Looking up {} books in the catalog", isbns.size());
+    	var distinctIsbns = isbns.stream().map(String::trim).filter(isbn -> !isbn.isEmpty()).distinct().toList();
+    	if (distinctIsbns.size() > BookController.MAX_LOOKUP_SIZE) {
+    		return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+    				"At most " + BookController.MAX_LOOKUP_SIZE + " ISBNs can be looked up at once."));
+    	}
+    	return bookService.lookupBooks(distinctIsbns);
+    }
+
+    /**
+     * Streams the whole catalog as newline-delimited JSON. Rows are pulled from the
+     * database only as fast as the client reads them.
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Book> stream() {
+    	log.info("Streaming the list of books in the catalog");
+    	return bookService.streamBookList();
+    }
+
+    @GetMapping("search")
+    public Flux<Book> search(@RequestParam("q") String query,
+    		@RequestParam(name = "page", defaultValue = "0") int page,
+    		@RequestParam(name = "size", defaultValue = "20") int size) {
+    	log.info("Searching the catalog for \"{}\"", query);
+    	if (query.isBlank()) {
+    		return Flux.empty();
+    	}
+    	var pageSize = Math.min(Math.max(size, 1), BookController.MAX_SEARCH_PAGE_SIZE);
+    	return bookService.searchBooks(query, Math.max(page, 0), pageSize);
+    }
+
+    /**
+     * Answers the routes only served by the servlet stack, which would otherwise be read
+     * as ISBNs.
+     */
+    @GetMapping({ "aggregates", "changes" })
+    public Mono<Void> servletOnly() {
+    	return Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "Only served by the servlet stack."));
+    }
+
+    @GetMapping("{isbn}")
+    public Mono<ResponseEntity<Object>> getByIsbn(@PathVariable("isbn") String isbn,
+    		@RequestParam(name = "fields", required = false) String fields, ServerWebExchange exchange) {
+    	log.info("Fetching the book with ISBN {} from the catalog", isbn);
+    	var bookFields = BookController.parseFields(fields);
+    	return bookService.viewBookDetails(isbn).map(book -> {
+    		var eTag = book.id() != null ? BookETags.of(BookVersion.of(book), bookFields) : null;
+    		var notModified = eTag != null && (book.lastModifiedDate() != null
+    				? exchange.checkNotModified(eTag, book.lastModifiedDate())
+    				: exchange.checkNotModified(eTag));
+    		var response = ResponseEntity.status(notModified ? HttpStatus.NOT_MODIFIED : HttpStatus.OK);
+    		if (eTag != null) {
+    			response.eTag(eTag);
+    		}
+    		if (book.lastModifiedDate() != null) {
+    			response.lastModified(book.lastModifiedDate());
+    		}
+    		return notModified ? response.build() : response.body(BookResponseCache.view(book, bookFields));
+    	});
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<Book> post(@Valid @RequestBody Book book) {
+    	log.info("Adding a new book to the catalog with ISBN {}", book.isbn());
+    	return bookService.addBookToCatalog(book);
+    }
+
+    @DeleteMapping("{isbn}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public Mono<Void> delete(@PathVariable("isbn") String isbn) {
+    	log.info("Deleting book with ISBN {}", isbn);
+    	return bookService.removeBookFromCatalog(isbn);
+    }
+
+    /**
+     * Updates the book, or creates it if it does not exist. With {@code If-Match}, the
+     * book must exist and still be at the tagged version, or 412 is returned.
+     */
+    @PutMapping("{isbn}")
+    public Mono<ResponseEntity<Book>> put(@PathVariable("isbn") String isbn, @Valid @RequestBody Book book,
+    		@RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    	log.info("Updating book with ISBN {}", isbn);
+    	var savedBook = ifMatch != null
+    			? bookService.editBookDetails(isbn, book, BookController.expectedVersion(isbn, ifMatch))
+    			: bookService.editBookDetails(isbn, book);
+    	return savedBook.map(saved -> ResponseEntity.ok().eTag(BookETags.of(BookVersion.of(saved))).body(saved));
+    }
+
+    /**
+     * Changes only the properties present in the body, like {@link BookController#patch}.
+     */
+    @PatchMapping(path = "{isbn}", consumes = { MediaType.APPLICATION_JSON_VALUE,
+    		BookController.MERGE_PATCH_JSON_VALUE })
+    public Mono<ResponseEntity<Book>> patch(@PathVariable("isbn") String isbn, @Valid @RequestBody BookPatch patch,
+    		@RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    	log.info("Patching book with ISBN {}", isbn);
+    	if (patch.isEmpty()) {
+    		return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "The patch changes no property."));
+    	}
+    	return bookService.patchBookDetails(isbn, patch, ifMatch != null ? BookController.expectedVersion(isbn, ifMatch) : null)
+    			.map(saved -> ResponseEntity.ok().eTag(BookETags.of(BookVersion.of(saved))).body(saved));
+    }
+
+}
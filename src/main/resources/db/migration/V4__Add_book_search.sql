@@ -0,0 +1,16 @@
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+ALTER TABLE book
+    ADD COLUMN search_vector tsvector GENERATED ALWAYS AS (
+        setweight(to_tsvector('simple', coalesce(name, '')), 'A') ||
+        setweight(to_tsvector('simple', coalesce(author, '')), 'B') ||
+        setweight(to_tsvector('simple', coalesce(publisher, '')), 'C')
+    ) STORED;
+
+CREATE INDEX book_search_vector_idx ON book USING GIN (search_vector);
+
+CREATE INDEX book_name_trgm_idx ON book USING GIN (name gin_trgm_ops);
+
+CREATE INDEX book_author_trgm_idx ON book USING GIN (author gin_trgm_ops);
+
+CREATE INDEX book_publisher_trgm_idx ON book USING GIN (publisher gin_trgm_ops);
@@ -0,0 +1,21 @@
+CREATE INDEX book_last_modified_date_idx ON book (last_modified_date, isbn);
+
+CREATE TABLE book_tombstone (
+      isbn                varchar(255) PRIMARY KEY NOT NULL,
+      deleted_date        timestamp NOT NULL
+);
+
+CREATE INDEX book_tombstone_deleted_date_idx ON book_tombstone (deleted_date, isbn);
+
+CREATE FUNCTION record_book_tombstone() RETURNS trigger AS $$
+BEGIN
+    INSERT INTO book_tombstone (isbn, deleted_date)
+    VALUES (OLD.isbn, clock_timestamp()::timestamp)
+    ON CONFLICT (isbn) DO UPDATE SET deleted_date = excluded.deleted_date;
+    RETURN OLD;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER book_tombstone_after_delete
+    AFTER DELETE ON book
+    FOR EACH ROW EXECUTE FUNCTION record_book_tombstone();
@@ -0,0 +1,12 @@
+-- One (column, id) index per filter and sort order of the book listing, so that a
+-- filtered page is read off an index in keyset order instead of scanning the table.
+-- Combined criteria use the most selective of them and filter the rest.
+CREATE INDEX book_author_id_idx ON book (author, id);
+
+CREATE INDEX book_publisher_id_idx ON book (publisher, id);
+
+CREATE INDEX book_price_id_idx ON book (price, id);
+
+CREATE INDEX book_name_id_idx ON book (name, id);
+
+CREATE INDEX book_last_modified_date_id_idx ON book (last_modified_date, id);
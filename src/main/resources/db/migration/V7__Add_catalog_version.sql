@@ -0,0 +1,20 @@
+-- A counter bumped by every statement that writes the book table, in the same
+-- transaction, so that the version a page is tagged with is read off one row instead of
+-- aggregating the table, and becomes visible exactly when the write commits.
+CREATE TABLE catalog_version (
+      id                  boolean PRIMARY KEY DEFAULT true CHECK (id),
+      version             bigint NOT NULL
+);
+
+INSERT INTO catalog_version (id, version) VALUES (true, 0);
+
+CREATE FUNCTION bump_catalog_version() RETURNS trigger AS $$
+BEGIN
+    UPDATE catalog_version SET version = version + 1;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER book_catalog_version_after_write
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON book
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_catalog_version();
@@ -0,0 +1,19 @@
+-- Creation and modification dates are stamped on the database clock, the one that
+-- stamps tombstones and bounds the change feed, whichever instance or repository
+-- writes the row. Mixing it with the clocks of the application instances could date a
+-- change behind a change feed cursor that has already moved past it.
+CREATE FUNCTION stamp_book_dates() RETURNS trigger AS $$
+BEGIN
+    NEW.last_modified_date := clock_timestamp()::timestamp;
+    IF TG_OP = 'INSERT' THEN
+        NEW.created_date := NEW.last_modified_date;
+    ELSE
+        NEW.created_date := OLD.created_date;
+    END IF;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER book_stamp_dates
+    BEFORE INSERT OR UPDATE ON book
+    FOR EACH ROW EXECUTE FUNCTION stamp_book_dates();
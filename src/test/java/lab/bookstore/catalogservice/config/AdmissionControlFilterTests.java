@@ -0,0 +1,172 @@
+package lab.bookstore.catalogservice.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletException;
+
+class AdmissionControlFilterTests {
+
+	private AdmissionProperties properties;
+
+	private SimpleMeterRegistry meterRegistry;
+
+	@BeforeEach
+	void setUp() {
+		properties = new AdmissionProperties();
+		properties.getReads().setInitialLimit(1);
+		properties.getReads().setMinLimit(1);
+		properties.getWrites().setInitialLimit(1);
+		properties.getWrites().setMinLimit(1);
+		meterRegistry = new SimpleMeterRegistry();
+	}
+
+	@Test
+	void should_reject_with_retry_after_when_reads_are_at_their_limit() throws Exception {
+		// given
+		var filter = new AdmissionControlFilter(properties, meterRegistry);
+		var nested = new MockHttpServletResponse();
+		var response = new MockHttpServletResponse();
+		// when
+		filter.doFilter(new MockHttpServletRequest("GET", "/books"), response,
+				(request, ignored) -> doFilter(filter, "GET", "/books/1234567891", nested));
+		// then
+		assertThat(response.getStatus()).isEqualTo(200);
+		assertThat(nested.getStatus()).isEqualTo(503);
+		assertThat(nested.getHeader("Retry-After")).isEqualTo("1");
+		assertThat(meterRegistry.get("catalog.admission.rejected").tag("class", "reads").counter().count()).isEqualTo(1);
+		assertThat(meterRegistry.get("catalog.admission.in.flight").tag("class", "reads").gauge().value()).isZero();
+	}
+
+	@Test
+	void should_admit_writes_and_actuator_requests_when_reads_are_at_their_limit() throws Exception {
+		// given
+		var filter = new AdmissionControlFilter(properties, meterRegistry);
+		var write = new MockHttpServletResponse();
+		var health = new MockHttpServletResponse();
+		// when
+		filter.doFilter(new MockHttpServletRequest("GET", "/books"), new MockHttpServletResponse(),
+				(request, response) -> {
+					doFilter(filter, "POST", "/books", write);
+					doFilter(filter, "GET", "/actuator/health", health);
+				});
+		// then
+		assertThat(write.getStatus()).isEqualTo(200);
+		assertThat(health.getStatus()).isEqualTo(200);
+	}
+
+	@Test
+	void should_keep_limit_when_streamed_response_completes_late() throws Exception {
+		// given
+		properties.getReads().setInitialLimit(20);
+		properties.getReads().setLatencyTarget(Duration.ZERO);
+		var filter = new AdmissionControlFilter(properties, meterRegistry);
+		var request = new MockHttpServletRequest("GET", "/books");
+		request.setAsyncSupported(true);
+		// when
+		filter.doFilter(request, new MockHttpServletResponse(), (started, ignored) -> started.startAsync());
+		var inFlightWhileStreaming = meterRegistry.get("catalog.admission.in.flight").tag("class", "reads").gauge().value();
+		request.getAsyncContext().complete();
+		// then
+		assertThat(inFlightWhileStreaming).isEqualTo(1);
+		assertThat(meterRegistry.get("catalog.admission.in.flight").tag("class", "reads").gauge().value()).isZero();
+		assertThat(meterRegistry.get("catalog.admission.limit").tag("class", "reads").gauge().value()).isEqualTo(20);
+	}
+
+	@Test
+	void should_lower_limit_when_requests_are_slower_than_target() {
+		// given
+		properties.getReads().setInitialLimit(20);
+		var limit = new AdaptiveConcurrencyLimit(properties.getReads());
+		var slow = Duration.ofSeconds(1).toNanos();
+		// when
+		for (int i = 0; i < 10; i++) {
+			assertThat(limit.tryAcquire()).isTrue();
+			limit.release(System.nanoTime(), slow, false);
+		}
+		// then
+		assertThat(limit.getLimit()).isEqualTo(6);
+		assertThat(limit.getInFlight()).isZero();
+	}
+
+	@Test
+	void should_lower_limit_once_when_concurrent_requests_are_slower_than_target() {
+		// given
+		properties.getReads().setInitialLimit(20);
+		var limit = new AdaptiveConcurrencyLimit(properties.getReads());
+		var slow = Duration.ofSeconds(1).toNanos();
+		var start = System.nanoTime();
+		for (int i = 0; i < 10; i++) {
+			assertThat(limit.tryAcquire()).isTrue();
+		}
+		// when
+		for (int i = 0; i < 10; i++) {
+			limit.release(start, slow, false);
+		}
+		// then
+		assertThat(limit.getLimit()).isEqualTo(18);
+		assertThat(limit.getInFlight()).isZero();
+	}
+
+	@Test
+	void should_keep_limit_when_bulk_requests_are_slow() throws Exception {
+		// given
+		properties.getWrites().setInitialLimit(20);
+		properties.getWrites().setLatencyTarget(Duration.ZERO);
+		var filter = new AdmissionControlFilter(properties, meterRegistry);
+		// when
+		doFilter(filter, "POST", "/books/import", new MockHttpServletResponse());
+		doFilter(filter, "DELETE", "/books", new MockHttpServletResponse());
+		// then
+		assertThat(meterRegistry.get("catalog.admission.limit").tag("class", "writes").gauge().value()).isEqualTo(20);
+		assertThat(meterRegistry.get("catalog.admission.in.flight").tag("class", "writes").gauge().value()).isZero();
+	}
+
+	@Test
+	void should_raise_limit_when_busy_requests_are_fast() {
+		// given
+		properties.getReads().setInitialLimit(2);
+		var limit = new AdaptiveConcurrencyLimit(properties.getReads());
+		var fast = Duration.ofMillis(10).toNanos();
+		// when
+		for (int i = 0; i < 20; i++) {
+			limit.tryAcquire();
+			limit.tryAcquire();
+			limit.release(System.nanoTime(), fast, false);
+			limit.release(System.nanoTime(), fast, false);
+		}
+		// then
+		assertThat(limit.getLimit()).isGreaterThan(2);
+		assertThat(limit.getLimit()).isLessThanOrEqualTo(properties.getReads().getMaxLimit());
+	}
+
+	@Test
+	void should_not_go_below_min_limit_when_requests_keep_failing() {
+		// given
+		var limit = new AdaptiveConcurrencyLimit(properties.getWrites());
+		// when
+		for (int i = 0; i < 50; i++) {
+			limit.tryAcquire();
+			limit.release(System.nanoTime(), 0, true);
+		}
+		// then
+		assertThat(limit.getLimit()).isEqualTo(1);
+		assertThat(limit.tryAcquire()).isTrue();
+		assertThat(limit.tryAcquire()).isFalse();
+	}
+
+	private static void doFilter(AdmissionControlFilter filter, String method, String uri,
+			MockHttpServletResponse response) throws IOException, ServletException {
+		filter.doFilter(new MockHttpServletRequest(method, uri), response, new MockFilterChain());
+	}
+
+}
@@ -0,0 +1,92 @@
+package lab.bookstore.catalogservice.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.server.resource.InvalidBearerTokenException;
+import org.springframework.security.oauth2.server.resource.authentication.BearerTokenAuthenticationToken;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class CachingJwtAuthenticationProviderTests {
+
+	private static final Instant NOW = Instant.parse("2026-01-01T10:00:00Z");
+
+	private JwtDecoder jwtDecoder;
+
+	private SimpleMeterRegistry meterRegistry;
+
+	private CachingJwtAuthenticationProvider provider;
+
+	@BeforeEach
+	void setUp() {
+		jwtDecoder = mock(JwtDecoder.class);
+		meterRegistry = new SimpleMeterRegistry();
+		provider = new CachingJwtAuthenticationProvider(jwtDecoder, SecurityConfig.jwtAuthenticationConverter(),
+				new JwtCacheProperties(), meterRegistry, Clock.fixed(NOW, ZoneOffset.UTC));
+	}
+
+	@Test
+	void should_decode_once_when_same_token_is_reused() {
+		// given
+		given(jwtDecoder.decode("token")).willReturn(jwt("token", NOW.plusSeconds(300)));
+		// when
+		var first = provider.authenticate(new BearerTokenAuthenticationToken("token"));
+		var second = provider.authenticate(new BearerTokenAuthenticationToken("token"));
+		// then
+		verify(jwtDecoder, times(1)).decode("token");
+		assertThat(second).isNotSameAs(first);
+		assertThat(second.getName()).isEqualTo("isabelle");
+		assertThat(second.getAuthorities()).extracting("authority").containsExactly("ROLE_employee");
+		assertThat(meterRegistry.get("catalog.jwt.decode").timer().count()).isEqualTo(1);
+	}
+
+	@Test
+	void should_decode_again_when_token_has_expired() {
+		// given
+		given(jwtDecoder.decode("token")).willReturn(jwt("token", NOW.minusSeconds(1)));
+		// when
+		provider.authenticate(new BearerTokenAuthenticationToken("token"));
+		provider.authenticate(new BearerTokenAuthenticationToken("token"));
+		// then
+		verify(jwtDecoder, times(2)).decode("token");
+	}
+
+	@Test
+	void should_not_remember_rejected_token() {
+		// given
+		given(jwtDecoder.decode(anyString())).willThrow(new BadJwtException("Invalid signature"));
+		// when, then
+		for (int i = 0; i < 2; i++) {
+			assertThatThrownBy(() -> provider.authenticate(new BearerTokenAuthenticationToken("forged")))
+					.isInstanceOf(InvalidBearerTokenException.class);
+		}
+		verify(jwtDecoder, times(2)).decode("forged");
+	}
+
+	private static Jwt jwt(String token, Instant expiresAt) {
+		return Jwt.withTokenValue(token)
+				.header("alg", "RS256")
+				.subject("isabelle")
+				.claim("roles", List.of("employee"))
+				.issuedAt(expiresAt.minusSeconds(600))
+				.expiresAt(expiresAt)
+				.build();
+	}
+
+}
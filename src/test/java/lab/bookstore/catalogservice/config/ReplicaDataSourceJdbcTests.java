@@ -0,0 +1,79 @@
+package lab.bookstore.catalogservice.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@JdbcTest
+@Import(ReplicaDataSourceConfig.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+		"spring.datasource.url=jdbc:tc:postgresql:13.4:///catalog_primary",
+		"line.datasource.replica.jdbc-url=jdbc:tc:postgresql:13.4:///catalog_replica",
+		"line.datasource.replica.driver-class-name=org.testcontainers.jdbc.ContainerDatabaseDriver" })
+class ReplicaDataSourceJdbcTests {
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Test
+	void should_route_read_only_transaction_to_replica() {
+		// given, when
+		var database = currentDatabase(true);
+		// then
+		assertThat(database).isEqualTo("catalog_replica");
+	}
+
+	@Test
+	void should_route_read_write_transaction_to_primary() {
+		// given, when
+		var database = currentDatabase(false);
+		// then
+		assertThat(database).isEqualTo("catalog_primary");
+	}
+
+	@Test
+	void should_route_read_only_transaction_to_primary_when_strong_reads_are_required() {
+		// given
+		ReadConsistency.requireStrong();
+		try {
+			// when
+			var database = currentDatabase(true);
+			// then
+			assertThat(database).isEqualTo("catalog_primary");
+		} finally {
+			ReadConsistency.reset();
+		}
+	}
+
+	@Test
+	void should_run_migrations_on_primary() {
+		// given, when
+		var tables = jdbcTemplate.queryForObject(
+				"select count(*) from information_schema.tables where table_name = 'book'", Integer.class);
+		// then
+		assertThat(tables).isEqualTo(1);
+	}
+
+	private String currentDatabase(boolean readOnly) {
+		var transactionTemplate = new TransactionTemplate(transactionManager);
+		transactionTemplate.setReadOnly(readOnly);
+		return transactionTemplate.execute(
+				status -> jdbcTemplate.queryForObject("select current_database()", String.class));
+	}
+
+}
@@ -0,0 +1,103 @@
+package lab.bookstore.catalogservice.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+
+class RequestLogSamplingFilterTests {
+
+	private RequestLogProperties properties;
+
+	private RequestLogSamplingFilter filter;
+
+	private Logger controllerLogger;
+
+	@BeforeEach
+	void setUp() {
+		properties = new RequestLogProperties();
+		filter = new RequestLogSamplingFilter(properties);
+		controllerLogger = new LoggerContext().getLogger("lab.bookstore.catalogservice.web.BookController");
+	}
+
+	@AfterEach
+	void tearDown() {
+		RequestContextHolder.resetRequestAttributes();
+	}
+
+	@Test
+	void should_drop_read_events_when_endpoint_is_not_sampled() {
+		// given
+		properties.getReads().setSampleRate(0);
+		request("GET", "/books/{isbn}");
+		// when
+		var reply = filter.decide(null, controllerLogger, Level.INFO, "Fetching", null, null);
+		// then
+		assertThat(reply).isEqualTo(FilterReply.DENY);
+		assertThat(filter.getSampledOut()).isEqualTo(1);
+	}
+
+	@Test
+	void should_log_write_and_warning_events_when_reads_are_not_sampled() {
+		// given
+		properties.getReads().setSampleRate(0);
+		// when
+		request("POST", "/books");
+		var write = filter.decide(null, controllerLogger, Level.INFO, "Adding", null, null);
+		request("GET", "/books/{isbn}");
+		var warning = filter.decide(null, controllerLogger, Level.WARN, "Failed", null, null);
+		// then
+		assertThat(write).isEqualTo(FilterReply.NEUTRAL);
+		assertThat(warning).isEqualTo(FilterReply.NEUTRAL);
+	}
+
+	@Test
+	void should_rate_limit_endpoint_when_policy_overrides_reads() {
+		// given
+		var policy = new RequestLogProperties.Policy();
+		policy.setMaxPerSecond(2);
+		properties.getEndpoints().put("GET /books", policy);
+		// when
+		for (int i = 0; i < 5; i++) {
+			request("GET", "/books");
+			filter.decide(null, controllerLogger, Level.INFO, "Fetching", null, null);
+		}
+		// then
+		assertThat(filter.getRateLimited()).isBetween(1L, 3L);
+	}
+
+	@Test
+	void should_decide_once_per_request_when_endpoint_is_sampled() {
+		// given
+		properties.getReads().setSampleRate(0.5);
+		properties.getReads().setMaxPerSecond(1);
+		request("GET", "/books/{isbn}");
+		var first = filter.decide(null, controllerLogger, Level.INFO, "Fetching", null, null);
+		// when
+		var replies = new ArrayList<FilterReply>();
+		for (int i = 0; i < 20; i++) {
+			replies.add(filter.decide(null, controllerLogger, Level.DEBUG, "Loaded", null, null));
+		}
+		// then
+		assertThat(replies).containsOnly(first);
+	}
+
+	private static void request(String method, String pattern) {
+		var request = new MockHttpServletRequest(method, pattern);
+		request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+	}
+
+}
@@ -1,22 +1,38 @@
 package lab.bookstore.catalogservice.repo;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.data.jdbc.DataJdbcTest;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.context.annotation.Import;
 import org.springframework.data.jdbc.core.JdbcAggregateTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ActiveProfiles;
 
 import lab.bookstore.catalogservice.config.DataConfig;
 import lab.bookstore.catalogservice.domain.Book;
+import lab.bookstore.catalogservice.domain.BookChange;
+import lab.bookstore.catalogservice.domain.BookChangeCursor;
+import lab.bookstore.catalogservice.domain.BookField;
+import lab.bookstore.catalogservice.domain.BookFilter;
+import lab.bookstore.catalogservice.domain.BookPageCursor;
+import lab.bookstore.catalogservice.domain.BookPatch;
+import lab.bookstore.catalogservice.domain.BookSort;
+import lab.bookstore.catalogservice.domain.BookVersion;
 
 @DataJdbcTest
 @Import(DataConfig.class)
@@ -30,6 +46,12 @@ class BookRepositoryJdbcTests {
 	@Autowired
 	private JdbcAggregateTemplate jdbc;
 
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private NamedParameterJdbcTemplate namedJdbcTemplate;
+
 	@Test
 	void should_findAll_get_books_when_books_were_inserted() {
 		// given
@@ -45,6 +67,117 @@ class BookRepositoryJdbcTests {
 				.collect(Collectors.toList())).hasSize(2);
 	}
 
+	@Test
+	void should_findPageAfter_get_books_after_cursor_in_id_order() {
+		// given
+		var book1 = jdbc.insert(Book.of("1234567895", "spring boot", "jim", 888.8, "Gotop"));
+		var book2 = jdbc.insert(Book.of("1234567896", "spring cloud", "jim", 888.8, "Gotop"));
+		var book3 = jdbc.insert(Book.of("1234567897", "spring data", "jim", 888.8, "Gotop"));
+		// when
+		List<Book> page = bookRepository.findPageAfter(book1.id(), 1);
+		// then
+		assertThat(page).extracting(Book::isbn).containsExactly(book2.isbn());
+		assertThat(bookRepository.findPageAfter(book2.id(), 10))
+				.extracting(Book::isbn).containsExactly(book3.isbn());
+	}
+
+	@Test
+	void should_streamAll_get_every_book_in_id_order() {
+		// given
+		var book1 = jdbc.insert(Book.of("1234567895", "spring boot", "jim", 888.8, "Gotop"));
+		var book2 = jdbc.insert(Book.of("1234567896", "spring cloud", "jim", 888.8, "Gotop"));
+		// when
+		List<Book> streamedBooks;
+		try (var books = bookRepository.streamAll()) {
+			streamedBooks = books
+					.filter(book -> book.isbn().equals(book1.isbn()) || book.isbn().equals(book2.isbn()))
+					.collect(Collectors.toList());
+		}
+		// then
+		assertThat(streamedBooks).extracting(Book::isbn).containsExactly(book1.isbn(), book2.isbn());
+		assertThat(streamedBooks.get(0).version()).isEqualTo(book1.version());
+		assertThat(streamedBooks.get(0).createdDate()).isNotNull();
+	}
+
+	@Test
+	void should_findPage_get_filtered_books_in_sort_order_after_cursor() {
+		// given
+		var cheap = jdbc.insert(Book.of("1234567895", "spring boot", "jim", 10.0, "Gotop"));
+		var middle = jdbc.insert(Book.of("1234567896", "spring cloud", "jim", 20.0, "Gotop"));
+		var dear = jdbc.insert(Book.of("1234567897", "spring data", "jim", 30.0, "Gotop"));
+		jdbc.insert(Book.of("1234567898", "spring batch", "jim", 25.0, "Manning"));
+		var filter = new BookFilter(null, "Gotop", 15.0, null, null);
+		var sort = BookSort.parse("-price");
+		// when
+		List<Book> firstPage = bookRepository.findPage(filter, sort, null, 1, BookField.ALL);
+		List<Book> nextPage = bookRepository.findPage(filter, sort, BookPageCursor.after(dear, sort), 10,
+				BookField.ALL);
+		// then
+		assertThat(firstPage).extracting(Book::isbn).containsExactly(dear.isbn());
+		assertThat(nextPage).extracting(Book::isbn).containsExactly(middle.isbn()).doesNotContain(cheap.isbn());
+	}
+
+	@Test
+	void should_findPage_read_only_requested_fields_and_keyset_columns() {
+		// given
+		var book = jdbc.insert(Book.of("1234567895", "spring boot", "jim", 10.0, "Gotop"));
+		// when
+		var page = bookRepository.findPage(BookFilter.NONE, BookSort.parse("-price"), null, 10,
+				BookField.parse("isbn,name"));
+		// then
+		assertThat(page).extracting(Book::id, Book::isbn, Book::name, Book::price, Book::author, Book::createdDate)
+				.containsExactly(tuple(book.id(), book.isbn(), book.name(), book.price(), null, null));
+	}
+
+	@ParameterizedTest
+	@CsvSource({ "author, id, author", "publisher, id, publisher", "minPrice, price, price",
+			"maxPrice, -price, price", "modifiedSince, lastModifiedDate, last_modified_date",
+			"cursor, name, name", "cursor, -price, price", "cursor, -lastModifiedDate, last_modified_date" })
+	void should_findPage_read_criterion_off_an_index_when_table_scans_are_disabled(String criterion, String sort,
+			String column) {
+		// given
+		var book = jdbc.insert(Book.of("1234567895", "spring boot", "jim", 10.0, "Gotop"));
+		var bookSort = BookSort.parse(sort);
+		var filter = switch (criterion) {
+			case "author" -> new BookFilter("jim", null, null, null, null);
+			case "publisher" -> new BookFilter(null, "Gotop", null, null, null);
+			case "minPrice" -> new BookFilter(null, null, 900.0, null, null);
+			case "maxPrice" -> new BookFilter(null, null, null, 5.0, null);
+			case "modifiedSince" -> new BookFilter(null, null, null, null, Instant.now());
+			default -> BookFilter.NONE;
+		};
+		var cursor = criterion.equals("cursor") ? BookPageCursor.after(book, bookSort) : null;
+		var query = BookQueriesImpl.pageQuery(filter, bookSort, cursor, 10, BookField.ALL);
+		// when
+		jdbcTemplate.execute("set local enable_seqscan = off");
+		var plan = namedJdbcTemplate.queryForList("explain " + query.sql(), query.parameters(), String.class);
+		// then
+		assertThat(plan).noneMatch(line -> line.contains("Seq Scan"))
+				.anyMatch(line -> line.contains("Index Cond") && line.contains(column));
+	}
+
+	@Test
+	void should_search_rank_name_matches_before_author_matches() {
+		// given
+		jdbc.insert(Book.of("1234567895", "Cloud Native Patterns", "Cornelia Davis", 888.8, "Manning"));
+		jdbc.insert(Book.of("1234567896", "Spring in Action", "Craig Walls", 888.8, "Manning"));
+		jdbc.insert(Book.of("1234567897", "Kotlin in Action", "Spring Team", 888.8, "Manning"));
+		// when
+		List<Book> books = bookRepository.search("spring", 10, 0);
+		// then
+		assertThat(books).extracting(Book::isbn).containsExactly("1234567896", "1234567897");
+	}
+
+	@Test
+	void should_search_find_books_with_misspelled_author() {
+		// given
+		jdbc.insert(Book.of("1234567895", "Cloud Native Patterns", "Cornelia Davis", 888.8, "Manning"));
+		// when
+		List<Book> books = bookRepository.search("Cornelia Davies", 10, 0);
+		// then
+		assertThat(books).extracting(Book::isbn).containsExactly("1234567895");
+	}
+
 	@Test
 	void should_findByIsbn_get_book_when_isbn_is_existing() {
 		// given
@@ -66,6 +199,109 @@ class BookRepositoryJdbcTests {
 		assertThat(createdBook).isEmpty();
 	}
 
+	@Test
+	void should_findAllByIsbn_get_only_existing_books() {
+		// given
+		jdbc.insert(Book.of("1234567895", "spring boot", "jim", 888.8, "Gotop"));
+		jdbc.insert(Book.of("1234567896", "spring cloud", "jim", 888.8, "Gotop"));
+		jdbc.insert(Book.of("1234567897", "spring data", "jim", 888.8, "Gotop"));
+		// when
+		List<Book> books = bookRepository.findAllByIsbn(List.of("1234567895", "1234567897", "1234567899"));
+		// then
+		assertThat(books).extracting(Book::isbn).containsExactlyInAnyOrder("1234567895", "1234567897");
+	}
+
+	@Test
+	void should_findVersionByIsbn_get_version_when_isbn_is_existing() {
+		// given
+		var createdBook = jdbc.insert(Book.of("1234567895", "spring cloud", "jim", 888.8, "Gotop"));
+		// when
+		var version = bookRepository.findVersionByIsbn(createdBook.isbn());
+		// then
+		assertThat(version).hasValueSatisfying(it -> {
+			assertThat(it.id()).isEqualTo(createdBook.id());
+			assertThat(it.version()).isEqualTo(createdBook.version());
+			assertThat(it.lastModifiedDate()).isNotNull();
+		});
+	}
+
+	@Test
+	void should_findCatalogVersion_change_when_book_is_inserted() {
+		// given
+		var before = bookRepository.findCatalogVersion();
+		// when
+		var createdBook = jdbc.insert(Book.of("1234567895", "spring cloud", "jim", 888.8, "Gotop"));
+		// then
+		var after = bookRepository.findCatalogVersion();
+		assertThat(createdBook.id()).isNotNull();
+		assertThat(after.version()).isGreaterThan(before.version());
+	}
+
+	@Test
+	void should_findCatalogVersion_change_when_book_is_updated_in_place() {
+		// given
+		var existingBook = jdbc.insert(Book.of("1234567895", "spring cloud", "jim", 888.8, "Gotop"));
+		var before = bookRepository.findCatalogVersion();
+		// when
+		bookRepository.upsert(existingBook.isbn(), Book.of("1234567895", "spring cloud 2", "jim", 888.8, "Gotop"));
+		// then
+		assertThat(bookRepository.findCatalogVersion().version()).isGreaterThan(before.version());
+	}
+
+	@Test
+	void should_findCatalogVersion_stay_when_statements_change_no_book() {
+		// given
+		var existingBook = jdbc.insert(Book.of("1234567895", "spring cloud", "jim", 888.8, "Gotop"));
+		var before = bookRepository.findCatalogVersion();
+		// when
+		bookRepository.insertIfAbsent(Book.of("1234567895", "spring cloud 2", "jim", 888.8, "Gotop"));
+		bookRepository.update(existingBook.isbn(), Book.of("1234567895", "spring cloud 2", "jim", 888.8, "Gotop"),
+				new BookVersion(existingBook.id(), existingBook.version() + 1, null));
+		bookRepository.deleteAllByIsbn(List.of("1234567896"));
+		// then
+		assertThat(bookRepository.findCatalogVersion()).isEqualTo(before);
+	}
+
+	@Test
+	void should_findChangesAfter_get_upserts_and_deletions_in_order() {
+		// given
+		jdbc.insert(Book.of("1234567895", "spring boot", "jim", 888.8, "Gotop"));
+		jdbc.insert(Book.of("1234567896", "spring cloud", "jim", 888.8, "Gotop"));
+		bookRepository.deleteByIsbn("1234567895");
+		// when
+		List<BookChange> changes = bookRepository.findChangesAfter(BookChangeCursor.START, Duration.ZERO, 10);
+		// then
+		assertThat(changes).extracting(BookChange::type, BookChange::isbn).containsExactly(
+				tuple(BookChange.Type.UPSERT, "1234567896"), tuple(BookChange.Type.DELETE, "1234567895"));
+		assertThat(changes.get(0).book().version()).isEqualTo(1);
+	}
+
+	@Test
+	void should_findChangesAfter_withhold_changes_younger_than_settle_time_by_database_clock() {
+		// given
+		bookRepository.upsert("1234567895", Book.of("1234567895", "spring boot", "jim", 888.8, "Gotop"));
+		jdbc.insert(Book.of("1234567896", "spring cloud", "jim", 888.8, "Gotop"));
+		bookRepository.deleteByIsbn("1234567896");
+		// when
+		List<BookChange> changes = bookRepository.findChangesAfter(BookChangeCursor.START, Duration.ofMinutes(1), 10);
+		// then
+		assertThat(changes).isEmpty();
+	}
+
+	@Test
+	void should_findChangesAfter_resume_from_cursor() {
+		// given
+		jdbc.insert(Book.of("1234567895", "spring boot", "jim", 888.8, "Gotop"));
+		jdbc.insert(Book.of("1234567896", "spring cloud", "jim", 888.8, "Gotop"));
+		var firstPage = bookRepository.findChangesAfter(BookChangeCursor.START, Duration.ZERO, 1);
+		// when
+		var cursor = BookChangeCursor.decode(firstPage.get(0).cursor().encode());
+		List<BookChange> secondPage = bookRepository.findChangesAfter(cursor, Duration.ZERO, 10);
+		// then
+		assertThat(firstPage).extracting(BookChange::isbn).containsExactly("1234567895");
+		assertThat(secondPage).extracting(BookChange::isbn).containsExactly("1234567896");
+	}
+
 	@Test
 	void should_existsByIsbn_get_true_when_isbn_is_existing() {
 		// given
@@ -105,6 +341,152 @@ class BookRepositoryJdbcTests {
         assertThat(createdBook.lastModifiedBy()).isEqualTo("john");
     }
 
+	@Test
+	@WithMockUser("john")
+	void should_insertIfAbsent_insert_book_when_isbn_is_not_existing() {
+		// given
+		var bookToCreate = Book.of("1234567895", "spring boot", "jim", 888.8, "Gotop");
+		// when
+		Optional<Book> createdBook = bookRepository.insertIfAbsent(bookToCreate);
+		// then
+		assertThat(createdBook).hasValueSatisfying(book -> {
+			assertThat(book.id()).isNotNull();
+			assertThat(book.version()).isEqualTo(1);
+			assertThat(book.createdDate()).isNotNull();
+			assertThat(book.createdBy()).isEqualTo("john");
+			assertThat(book.lastModifiedBy()).isEqualTo("john");
+		});
+	}
+
+	@Test
+	void should_insertIfAbsent_not_insert_book_when_isbn_is_existing() {
+		// given
+		jdbc.insert(Book.of("1234567895", "spring boot", "jim", 888.8, "Gotop"));
+		// when
+		Optional<Book> createdBook = bookRepository.insertIfAbsent(Book.of("1234567895", "spring cloud", "jim", 888.8, "Gotop"));
+		// then
+		assertThat(createdBook).isEmpty();
+		assertThat(bookRepository.findByIsbn("1234567895")).hasValueSatisfying(book ->
+				assertThat(book.name()).isEqualTo("spring boot"));
+	}
+
+	@Test
+	@WithMockUser("john")
+	void should_upsert_update_book_and_keep_creation_audit_when_isbn_is_existing() {
+		// given
+		var existingBook = jdbc.insert(Book.of("1234567895", "spring boot", "jim", 888.8, "Gotop"));
+		// when
+		var updatedBook = bookRepository.upsert(existingBook.isbn(), Book.of("0000000000", "spring boot 3", "jim", 999.9, "Manning"));
+		// then
+		assertThat(updatedBook.id()).isEqualTo(existingBook.id());
+		assertThat(updatedBook.isbn()).isEqualTo(existingBook.isbn());
+		assertThat(updatedBook.name()).isEqualTo("spring boot 3");
+		assertThat(updatedBook.publisher()).isEqualTo("Manning");
+		assertThat(updatedBook.version()).isEqualTo(existingBook.version() + 1);
+		assertThat(updatedBook.createdBy()).isNull();
+		assertThat(updatedBook.lastModifiedBy()).isEqualTo("john");
+		assertThat(updatedBook.lastModifiedDate()).isAfterOrEqualTo(updatedBook.createdDate());
+	}
+
+	@Test
+	void should_upsert_insert_book_when_isbn_is_not_existing() {
+		// when
+		var createdBook = bookRepository.upsert("1234567895", Book.of("1234567895", "spring boot", "jim", 888.8, "Gotop"));
+		// then
+		assertThat(createdBook.id()).isNotNull();
+		assertThat(createdBook.version()).isEqualTo(1);
+	}
+
+	@Test
+	@WithMockUser("john")
+	void should_update_book_when_version_is_expected() {
+		// given
+		var existingBook = jdbc.insert(Book.of("1234567895", "spring boot", "jim", 888.8, "Gotop"));
+		// when
+		var updatedBook = bookRepository.update(existingBook.isbn(), Book.of("1234567895", "spring boot 3", "jim", 999.9, null),
+				BookVersion.of(existingBook));
+		// then
+		assertThat(updatedBook).hasValueSatisfying(book -> {
+			assertThat(book.name()).isEqualTo("spring boot 3");
+			assertThat(book.publisher()).isNull();
+			assertThat(book.version()).isEqualTo(existingBook.version() + 1);
+			assertThat(book.lastModifiedBy()).isEqualTo("john");
+		});
+	}
+
+	@Test
+	void should_update_not_update_book_when_version_is_stale() {
+		// given
+		var existingBook = jdbc.insert(Book.of("1234567895", "spring boot", "jim", 888.8, "Gotop"));
+		var staleVersion = new BookVersion(existingBook.id(), existingBook.version() - 1, null);
+		// when
+		var updatedBook = bookRepository.update(existingBook.isbn(), Book.of("1234567895", "spring boot 3", "jim", 999.9, null),
+				staleVersion);
+		// then
+		assertThat(updatedBook).isEmpty();
+		assertThat(bookRepository.findByIsbn(existingBook.isbn())).hasValueSatisfying(book -> {
+			assertThat(book.name()).isEqualTo("spring boot");
+			assertThat(book.version()).isEqualTo(existingBook.version());
+		});
+	}
+
+	@Test
+	void should_patch_change_only_given_properties() {
+		// given
+		var existingBook = jdbc.insert(Book.of("1234567895", "spring boot", "jim", 888.8, "Gotop"));
+		// when
+		var patchedBook = bookRepository.patch(existingBook.isbn(), new BookPatch(null, null, 777.7, null), null);
+		// then
+		assertThat(patchedBook).hasValueSatisfying(book -> {
+			assertThat(book.name()).isEqualTo("spring boot");
+			assertThat(book.publisher()).isEqualTo("Gotop");
+			assertThat(book.price()).isEqualTo(777.7);
+			assertThat(book.version()).isEqualTo(existingBook.version() + 1);
+		});
+	}
+
+	@Test
+	void should_patch_remove_publisher_when_patch_removes_it() {
+		// given
+		var existingBook = jdbc.insert(Book.of("1234567895", "spring boot", "jim", 888.8, "Gotop"));
+		// when
+		var patchedBook = bookRepository.patch(existingBook.isbn(), new BookPatch(null, null, null, null, true), null);
+		// then
+		assertThat(patchedBook).hasValueSatisfying(book -> {
+			assertThat(book.publisher()).isNull();
+			assertThat(book.price()).isEqualTo(888.8);
+		});
+	}
+
+	@Test
+	void should_patch_not_update_book_when_isbn_is_not_existing() {
+		// when
+		var patchedBook = bookRepository.patch("1234567895", new BookPatch("spring boot", null, null, null), null);
+		// then
+		assertThat(patchedBook).isEmpty();
+	}
+
+	@Test
+	@WithMockUser("john")
+	void should_insertAll_skip_books_when_isbn_is_existing() {
+		// given
+		jdbc.insert(Book.of("1234567895", "spring boot", "jim", 888.8, "Gotop"));
+		var books = List.of(
+				Book.of("1234567895", "spring boot 2", "jim", 888.8, "Gotop"),
+				Book.of("1234567896", "spring cloud", "jim", 888.8, "Gotop"));
+		// when
+		int[] updateCounts = bookRepository.insertAll(books);
+		// then
+		assertThat(updateCounts).containsExactly(0, 1);
+		assertThat(bookRepository.findByIsbn("1234567895")).hasValueSatisfying(book ->
+				assertThat(book.name()).isEqualTo("spring boot"));
+		assertThat(bookRepository.findByIsbn("1234567896")).hasValueSatisfying(book -> {
+			assertThat(book.version()).isEqualTo(1);
+			assertThat(book.createdDate()).isNotNull();
+			assertThat(book.createdBy()).isEqualTo("john");
+		});
+	}
+
 	@Test
 	void should_deleteByIsbn_delete_book_when_isbn_is_existing() {
 		// given
@@ -117,4 +499,49 @@ class BookRepositoryJdbcTests {
 		assertThat(jdbc.findById(createdBook.id(), Book.class)).isNull();
 	}
 
+	@Test
+	void should_deleteAllByIsbn_delete_existing_books_and_return_their_isbns() {
+		// given
+		jdbc.insert(Book.of("1234567895", "spring boot", "jim", 888.8, "Gotop"));
+		jdbc.insert(Book.of("1234567896", "spring cloud", "jim", 888.8, "Gotop"));
+		jdbc.insert(Book.of("1234567897", "spring data", "jim", 888.8, "Gotop"));
+		// when
+		var deletedIsbns = bookRepository.deleteAllByIsbn(List.of("1234567895", "1234567897", "1234567899"));
+		// then
+		assertThat(deletedIsbns).containsExactlyInAnyOrder("1234567895", "1234567897");
+		assertThat(bookRepository.existsByIsbn("1234567896")).isTrue();
+		assertThat(bookRepository.findChangesAfter(BookChangeCursor.START, Duration.ZERO, 10))
+				.filteredOn(change -> change.type() == BookChange.Type.DELETE)
+				.extracting(BookChange::isbn)
+				.containsExactlyInAnyOrder("1234567895", "1234567897");
+	}
+
+	@Test
+	void should_deleteMatching_delete_only_books_meeting_filter() {
+		// given
+		jdbc.insert(Book.of("1234567895", "spring boot", "jim", 888.8, "Gotop"));
+		jdbc.insert(Book.of("1234567896", "spring cloud", "jim", 888.8, "Manning"));
+		jdbc.insert(Book.of("1234567897", "spring data", "ann", 10.0, "Gotop"));
+		// when
+		var deletedIsbns = bookRepository.deleteMatching(new BookFilter(null, "Gotop", 100.0, null, null), 10);
+		// then
+		assertThat(deletedIsbns).containsExactly("1234567895");
+		assertThat(bookRepository.findAllByIsbn(List.of("1234567895", "1234567896", "1234567897")))
+				.extracting(Book::isbn)
+				.containsExactlyInAnyOrder("1234567896", "1234567897");
+	}
+
+	@Test
+	void should_deleteMatching_delete_at_most_limit_books_lowest_ids_first() {
+		// given
+		var first = jdbc.insert(Book.of("1234567895", "spring boot", "jim", 888.8, "Gotop"));
+		jdbc.insert(Book.of("1234567896", "spring cloud", "jim", 888.8, "Gotop"));
+		jdbc.insert(Book.of("1234567897", "spring data", "jim", 888.8, "Gotop"));
+		// when
+		var deletedIsbns = bookRepository.deleteMatching(new BookFilter(null, null, 0.0, null, null), 1);
+		// then
+		assertThat(deletedIsbns).containsExactly(first.isbn());
+		assertThat(bookRepository.count()).isEqualTo(2);
+	}
+
 }
@@ -0,0 +1,164 @@
+package lab.bookstore.catalogservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lab.bookstore.catalogservice.config.BookCacheProperties;
+import lab.bookstore.catalogservice.config.ReadConsistency;
+import lab.bookstore.catalogservice.domain.Book;
+
+class BookCacheTests {
+
+	private static final String ISBN = "1234567890";
+
+	private SimpleMeterRegistry meterRegistry;
+
+	private BookCache bookCache;
+
+	@BeforeEach
+	void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		bookCache = new BookCache(new BookCacheProperties(), meterRegistry);
+	}
+
+	@Test
+	void should_not_install_loaded_book_when_write_happened_during_load() {
+		// given
+		var staleBook = book(1);
+		// when
+		bookCache.get(ISBN, isbn -> {
+			bookCache.invalidate(isbn);
+			return Optional.of(staleBook);
+		});
+		// then
+		assertThat(bookCache.get(ISBN, isbn -> Optional.empty())).isEmpty();
+	}
+
+	@Test
+	void should_keep_newer_version_when_older_version_is_written_later() {
+		// given
+		bookCache.update(book(3));
+		// when
+		bookCache.update(book(2));
+		// then
+		assertThat(bookCache.get(ISBN, isbn -> Optional.empty()))
+				.hasValueSatisfying(book -> assertThat(book.version()).isEqualTo(3));
+	}
+
+	@Test
+	void should_load_from_database_when_strong_read_finds_book_cached() {
+		// given
+		bookCache.update(book(1));
+		var loadCount = new AtomicInteger();
+		// when
+		var found = ReadConsistency.strongly(() -> bookCache.get(ISBN, isbn -> {
+			loadCount.incrementAndGet();
+			return Optional.of(book(2));
+		}));
+		var peeked = ReadConsistency.strongly(() -> bookCache.peek(ISBN));
+		// then
+		assertThat(loadCount).hasValue(1);
+		assertThat(found).hasValueSatisfying(book -> assertThat(book.version()).isEqualTo(2));
+		assertThat(peeked).isEmpty();
+		assertThat(bookCache.peek(ISBN)).hasValueSatisfying(book -> assertThat(book.version()).isEqualTo(2));
+	}
+
+	@Test
+	void should_load_only_uncached_books_in_one_call() {
+		// given
+		bookCache.update(book(1));
+		var loads = new ArrayList<List<String>>();
+		// when
+		var books = bookCache.getAll(List.of(ISBN, "1234567891", "1234567892"), isbns -> {
+			loads.add(isbns);
+			return List.of(new Book(2L, "1234567891", "spring", "jim", 888.8, "Gotop", null, null, null, null, 1));
+		});
+		// then
+		assertThat(loads).containsExactly(List.of("1234567891", "1234567892"));
+		assertThat(books).containsOnlyKeys(ISBN, "1234567891");
+		assertThat(bookCache.peek("1234567891")).isPresent();
+	}
+
+	@Test
+	void should_share_one_load_when_same_isbn_is_missed_concurrently() throws Exception {
+		// given
+		var loadStarted = new CountDownLatch(1);
+		var releaseLoad = new CountDownLatch(1);
+		var loadCount = new AtomicInteger();
+		Function<String, Optional<Book>> slowNotFound = isbn -> {
+			loadCount.incrementAndGet();
+			loadStarted.countDown();
+			await(releaseLoad);
+			return Optional.empty();
+		};
+		var executor = Executors.newFixedThreadPool(2);
+		try {
+			var leader = executor.submit(() -> bookCache.get(ISBN, slowNotFound));
+			loadStarted.await(5, TimeUnit.SECONDS);
+			// when
+			var follower = executor.submit(() -> bookCache.get(ISBN, slowNotFound));
+			while (meterRegistry.get("catalog.lookups.coalesced").functionCounter().count() < 1) {
+				Thread.onSpinWait();
+			}
+			releaseLoad.countDown();
+			// then
+			assertThat(leader.get(5, TimeUnit.SECONDS)).isEmpty();
+			assertThat(follower.get(5, TimeUnit.SECONDS)).isEmpty();
+			assertThat(loadCount).hasValue(1);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void should_start_new_load_when_write_happened_during_shared_load() {
+		// given
+		var reloaded = new ArrayList<Book>();
+		// when
+		bookCache.get(ISBN, isbn -> {
+			bookCache.invalidate(isbn);
+			reloaded.add(bookCache.get(isbn, again -> Optional.of(book(2))).orElseThrow());
+			return Optional.of(book(1));
+		});
+		// then
+		assertThat(reloaded).extracting(Book::version).containsExactly(2);
+	}
+
+	@Test
+	void should_record_hits_and_misses_in_meter_registry() {
+		// given
+		bookCache.get(ISBN, isbn -> Optional.of(book(1)));
+		// when
+		bookCache.get(ISBN, isbn -> Optional.empty());
+		// then
+		assertThat(meterRegistry.get("cache.gets").tag("cache", "books").tag("result", "hit")
+				.functionCounter().count()).isEqualTo(1);
+		assertThat(meterRegistry.get("cache.gets").tag("cache", "books").tag("result", "miss")
+				.functionCounter().count()).isEqualTo(1);
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static Book book(int version) {
+		return new Book(1L, ISBN, "java", "jim", 888.8, "Gotop", null, null, null, null, version);
+	}
+
+}
@@ -1,37 +1,61 @@
 package lab.bookstore.catalogservice.service;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.IOException;
+import java.util.List;
 import java.util.Optional;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import lab.bookstore.catalogservice.config.BookCacheProperties;
 import lab.bookstore.catalogservice.domain.Book;
 import lab.bookstore.catalogservice.domain.BookAlreadyExistsException;
+import lab.bookstore.catalogservice.domain.BookFilter;
 import lab.bookstore.catalogservice.domain.BookNotFoundException;
+import lab.bookstore.catalogservice.domain.BookPatch;
+import lab.bookstore.catalogservice.domain.BookVersion;
+import lab.bookstore.catalogservice.domain.BookVersionMismatchException;
 import lab.bookstore.catalogservice.repo.BookRepository;
 
 @ExtendWith(MockitoExtension.class)
 class BookServiceTests {
 
+	private static final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
 	@Mock
 	private BookRepository bookRepository;
 
-	@InjectMocks
 	private BookService bookService;
 
+	@BeforeEach
+	void setUp() {
+		bookService = new BookService(bookRepository, new BookCache(new BookCacheProperties(), new SimpleMeterRegistry()),
+				new CatalogAggregates(bookRepository), Validation.buildDefaultValidatorFactory().getValidator());
+	}
+
 	@Test
 	void should_throw_BookAlreadyExistsException_when_book_to_create_already_exist() {
 		// given
 		var isbn = "1234567890";
 		var bookToCreate = Book.of(isbn, "java", "jim", 888.8, "Gotop");
 		// when
-		when(bookRepository.existsByIsbn(isbn)).thenReturn(true);
+		when(bookRepository.insertIfAbsent(bookToCreate)).thenReturn(Optional.empty());
 		// then
 		assertThatThrownBy(() -> bookService.addBookToCatalog(bookToCreate))
 				.isInstanceOf(BookAlreadyExistsException.class)
@@ -50,4 +74,139 @@ class BookServiceTests {
 				.hasMessage("The book with ISBN " + isbn + " was not found.");
 	}
 
+	@Test
+	void should_get_book_from_cache_when_book_was_already_viewed() {
+		// given
+		var isbn = "1234567890";
+		var book = new Book(1L, isbn, "java", "jim", 888.8, "Gotop", null, null, null, null, 1);
+		when(bookRepository.findByIsbn(isbn)).thenReturn(Optional.of(book));
+		// when
+		bookService.viewBookDetails(isbn);
+		var viewedBook = bookService.viewBookDetails(isbn);
+		// then
+		assertThat(viewedBook).isEqualTo(book);
+		verify(bookRepository, times(1)).findByIsbn(isbn);
+	}
+
+	@Test
+	void should_reload_book_when_book_was_removed_after_being_viewed() {
+		// given
+		var isbn = "1234567890";
+		var book = new Book(1L, isbn, "java", "jim", 888.8, "Gotop", null, null, null, null, 1);
+		when(bookRepository.findByIsbn(isbn)).thenReturn(Optional.of(book), Optional.empty());
+		bookService.viewBookDetails(isbn);
+		// when
+		bookService.removeBookFromCatalog(isbn);
+		// then
+		assertThatThrownBy(() -> bookService.viewBookDetails(isbn))
+				.isInstanceOf(BookNotFoundException.class);
+	}
+
+	@Test
+	void should_throw_BookVersionMismatchException_when_book_to_patch_is_not_at_expected_version() {
+		// given
+		var isbn = "1234567890";
+		var patch = new BookPatch("java 2", null, null, null);
+		var expected = new BookVersion(1L, 1, null);
+		// when
+		when(bookRepository.patch(isbn, patch, expected)).thenReturn(Optional.empty());
+		// then
+		assertThatThrownBy(() -> bookService.patchBookDetails(isbn, patch, expected))
+				.isInstanceOf(BookVersionMismatchException.class);
+	}
+
+	@Test
+	void should_throw_BookNotFoundException_when_book_to_patch_not_exist() {
+		// given
+		var isbn = "1234567890";
+		var patch = new BookPatch("java 2", null, null, null);
+		// when
+		when(bookRepository.patch(isbn, patch, null)).thenReturn(Optional.empty());
+		// then
+		assertThatThrownBy(() -> bookService.patchBookDetails(isbn, patch, null))
+				.isInstanceOf(BookNotFoundException.class);
+	}
+
+	@Test
+	void should_get_edited_book_from_cache_when_book_was_edited_at_expected_version() {
+		// given
+		var isbn = "1234567890";
+		var book = new Book(1L, isbn, "java", "jim", 888.8, "Gotop", null, null, null, null, 1);
+		var editedBook = new Book(1L, isbn, "java 2", "jim", 888.8, "Gotop", null, null, null, null, 2);
+		when(bookRepository.findByIsbn(isbn)).thenReturn(Optional.of(book));
+		when(bookRepository.update(isbn, editedBook, BookVersion.of(book))).thenReturn(Optional.of(editedBook));
+		bookService.viewBookDetails(isbn);
+		// when
+		bookService.editBookDetails(isbn, editedBook, BookVersion.of(book));
+		// then
+		assertThat(bookService.viewBookDetails(isbn)).isEqualTo(editedBook);
+		verify(bookRepository, times(1)).findByIsbn(isbn);
+	}
+
+	@Test
+	void should_report_more_when_filter_delete_fills_its_limit() {
+		// given
+		var filter = new BookFilter(null, "Gotop", null, null, null);
+		when(bookRepository.deleteMatching(filter, 2)).thenReturn(List.of("1234567890", "1234567891"));
+		// when
+		var result = bookService.removeBooksFromCatalog(filter, 2);
+		// then
+		assertThat(result).isEqualTo(new BookDeleteResult(2, List.of("1234567890", "1234567891"), true));
+	}
+
+	@Test
+	void should_reload_books_when_books_were_removed_in_bulk_after_being_viewed() {
+		// given
+		var isbn = "1234567890";
+		var book = new Book(1L, isbn, "java", "jim", 888.8, "Gotop", null, null, null, null, 1);
+		when(bookRepository.findByIsbn(isbn)).thenReturn(Optional.of(book), Optional.empty());
+		when(bookRepository.deleteMatching(new BookFilter(null, "Gotop", null, null, null), 10)).thenReturn(List.of(isbn));
+		bookService.viewBookDetails(isbn);
+		// when
+		var result = bookService.removeBooksFromCatalog(new BookFilter(null, "Gotop", null, null, null), 10);
+		// then
+		assertThat(result).isEqualTo(new BookDeleteResult(1, List.of(isbn)));
+		assertThatThrownBy(() -> bookService.viewBookDetails(isbn))
+				.isInstanceOf(BookNotFoundException.class);
+	}
+
+	@Test
+	void should_report_invalid_duplicate_and_existing_books_when_importing() throws IOException {
+		// given
+		var valid = Book.of("1234567890", "java", "jim", 888.8, "Gotop");
+		var invalid = Book.of("a234567890", "java", "jim", 888.8, "Gotop");
+		var duplicate = Book.of("1234567890", "java 2", "jim", 888.8, "Gotop");
+		var existing = Book.of("1234567891", "java", "jim", 888.8, "Gotop");
+		when(bookRepository.insertAll(anyList())).thenReturn(new int[] { 1, 0 });
+		// when
+		var result = bookService.importBooks(feed(valid, invalid, duplicate, existing));
+		// then
+		assertThat(result.imported()).isEqualTo(1);
+		assertThat(result.errors()).extracting(error -> error.index()).containsExactly(1, 2, 3);
+		assertThat(result.errors().get(0).messages()).containsExactly("The ISBN format must be valid.");
+		assertThat(result.errors().get(2).messages())
+				.containsExactly("A book with ISBN " + existing.isbn() + " already exists.");
+	}
+
+	@Test
+	void should_import_books_before_record_where_feed_is_malformed() throws IOException {
+		// given
+		var valid = Book.of("1234567890", "java", "jim", 888.8, "Gotop");
+		when(bookRepository.insertAll(anyList())).thenReturn(new int[] { 1 });
+		var json = objectMapper.writeValueAsString(valid) + "\n{\"isbn\": \"1234567891\",,}\n";
+		// when
+		var result = bookService.importBooks(objectMapper.readerFor(Book.class).readValues(json));
+		// then
+		assertThat(result.imported()).isEqualTo(1);
+		assertThat(result.errors()).extracting(error -> error.index()).containsExactly(1);
+	}
+
+	private static MappingIterator<Book> feed(Book... books) throws IOException {
+		var json = new StringBuilder();
+		for (var book : books) {
+			json.append(objectMapper.writeValueAsString(book)).append('\n');
+		}
+		return objectMapper.readerFor(Book.class).readValues(json.toString());
+	}
+
 }
@@ -0,0 +1,66 @@
+package lab.bookstore.catalogservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.jdbc.DataJdbcTest;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jdbc.core.JdbcAggregateTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import lab.bookstore.catalogservice.config.DataConfig;
+import lab.bookstore.catalogservice.config.ReplicaDataSourceConfig;
+import lab.bookstore.catalogservice.domain.Book;
+
+@DataJdbcTest
+@Import({ DataConfig.class, ReplicaDataSourceConfig.class, CatalogAggregates.class })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+		"spring.datasource.url=jdbc:tc:postgresql:13.4:///catalog_primary",
+		"line.datasource.replica.jdbc-url=" + CatalogAggregatesReplicaJdbcTests.REPLICA_URL,
+		"line.datasource.replica.driver-class-name=org.testcontainers.jdbc.ContainerDatabaseDriver" })
+class CatalogAggregatesReplicaJdbcTests {
+
+	static final String REPLICA_URL = "jdbc:tc:postgresql:13.4:///catalog_replica";
+
+	@Autowired
+	private CatalogAggregates catalogAggregates;
+
+	@Autowired
+	private JdbcAggregateTemplate jdbc;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	void setUp() {
+		// the replica pool is read-only, so the schema goes through a connection of its own;
+		// lagging behind, the replica never gets the books inserted on the primary
+		Flyway.configure().dataSource(REPLICA_URL, null, null).load().migrate();
+	}
+
+	@AfterEach
+	void tearDown() {
+		jdbcTemplate.update("delete from book");
+	}
+
+	@Test
+	void should_rebuild_from_primary_when_replica_lags() {
+		// given
+		jdbc.insert(Book.of("1234567890", "java", "jim", 10.0, "Gotop"));
+		// when
+		catalogAggregates.rebuild();
+		// then
+		assertThat(catalogAggregates.summary().count()).isEqualTo(1);
+	}
+
+}
@@ -0,0 +1,81 @@
+package lab.bookstore.catalogservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import lab.bookstore.catalogservice.domain.Book;
+import lab.bookstore.catalogservice.repo.BookRepository;
+import lab.bookstore.catalogservice.service.CatalogSummary.PriceStatistics;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogAggregatesTests {
+
+	@Mock
+	private BookRepository bookRepository;
+
+	private CatalogAggregates catalogAggregates;
+
+	@BeforeEach
+	void setUp() {
+		catalogAggregates = new CatalogAggregates(bookRepository);
+	}
+
+	@Test
+	void should_summarize_catalog_read_by_rebuild() {
+		// given
+		when(bookRepository.streamAll()).thenReturn(Stream.of(
+				Book.of("1234567890", "java", "jim", 10.0, "Gotop"),
+				Book.of("1234567891", "spring", "jim", 30.0, "Manning")));
+		// when
+		catalogAggregates.rebuild();
+		// then
+		assertThat(catalogAggregates.summary()).isEqualTo(new CatalogSummary(2,
+				Map.of("Gotop", 1L, "Manning", 1L), Map.of("jim", 2L), new PriceStatistics(10.0, 30.0, 20.0)));
+	}
+
+	@Test
+	void should_keep_min_and_max_price_when_edited_and_removed() {
+		// given
+		catalogAggregates.put(Book.of("1234567890", "java", "jim", 10.0, "Gotop"));
+		catalogAggregates.put(Book.of("1234567891", "spring", "ann", 30.0, "Gotop"));
+		catalogAggregates.put(Book.of("1234567892", "kotlin", "bob", 20.0, null));
+		// when
+		catalogAggregates.put(Book.of("1234567891", "spring", "ann", 25.0, "Manning"));
+		catalogAggregates.remove("1234567890");
+		// then
+		assertThat(catalogAggregates.summary()).isEqualTo(new CatalogSummary(2,
+				Map.of("Manning", 1L), Map.of("ann", 1L, "bob", 1L), new PriceStatistics(20.0, 25.0, 22.5)));
+	}
+
+	@Test
+	void should_replay_writes_made_while_rebuilding() {
+		// given
+		when(bookRepository.streamAll()).thenAnswer(invocation -> {
+			catalogAggregates.put(Book.of("1234567891", "spring", "jim", 30.0, "Gotop"));
+			return Stream.of(Book.of("1234567890", "java", "jim", 10.0, "Gotop"));
+		});
+		// when
+		catalogAggregates.rebuild();
+		// then
+		assertThat(catalogAggregates.summary().count()).isEqualTo(2);
+	}
+
+	@Test
+	void should_have_no_price_statistics_when_catalog_is_empty() {
+		// given, when
+		var summary = catalogAggregates.summary();
+		// then
+		assertThat(summary.count()).isZero();
+		assertThat(summary.price()).isNull();
+	}
+
+}
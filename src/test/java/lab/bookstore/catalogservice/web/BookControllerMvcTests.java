@@ -1,31 +1,83 @@
 package lab.bookstore.catalogservice.web;
 
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.Validation;
+import lab.bookstore.catalogservice.config.BookCacheProperties;
 import lab.bookstore.catalogservice.config.SecurityConfig;
 import lab.bookstore.catalogservice.domain.Book;
+import lab.bookstore.catalogservice.domain.BookChange;
+import lab.bookstore.catalogservice.domain.BookChangeCursor;
+import lab.bookstore.catalogservice.domain.BookField;
+import lab.bookstore.catalogservice.domain.BookFilter;
 import lab.bookstore.catalogservice.domain.BookNotFoundException;
+import lab.bookstore.catalogservice.domain.BookPageCursor;
+import lab.bookstore.catalogservice.domain.BookPatch;
+import lab.bookstore.catalogservice.domain.BookSort;
+import lab.bookstore.catalogservice.domain.BookVersion;
+import lab.bookstore.catalogservice.domain.BookVersionMismatchException;
+import lab.bookstore.catalogservice.domain.CatalogVersion;
+import lab.bookstore.catalogservice.repo.BookRepository;
+import lab.bookstore.catalogservice.service.BookCache;
+import lab.bookstore.catalogservice.service.BookChangePage;
+import lab.bookstore.catalogservice.service.BookDeleteResult;
+import lab.bookstore.catalogservice.service.BookImportResult;
+import lab.bookstore.catalogservice.service.BookLookupResult;
 import lab.bookstore.catalogservice.service.BookService;
+import lab.bookstore.catalogservice.service.CatalogAggregates;
+import lab.bookstore.catalogservice.service.CatalogSummary;
+import lab.bookstore.catalogservice.service.CatalogSummary.PriceStatistics;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.test.web.servlet.MockMvc;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(BookController.class)
-@Import(SecurityConfig.class)
+@Import({ SecurityConfig.class, BookResponseCache.class })
+@AutoConfigureObservability(tracing = false)
 class BookControllerMvcTests {
 
     private static final String ROLE_EMPLOYEE = "ROLE_employee";
@@ -37,12 +89,278 @@ class BookControllerMvcTests {
     @Autowired
     ObjectMapper objectMapper;
 
+    @Autowired
+    MeterRegistry meterRegistry;
+
     @MockBean
     BookService bookService;
 
     @MockBean
     JwtDecoder jwtDecoder;
 
+    @Test
+    void whenGetBooksWithFullPageThenShouldReturnNextLink() throws Exception {
+        var book1 = new Book(1L, "7373731394", "Title", "Author", 9.90, "GoTop", null, null, null, null, 1);
+        var book2 = new Book(2L, "7373731395", "Title", "Author", 9.90, "GoTop", null, null, null, null, 1);
+        given(bookService.viewCatalogVersion()).willReturn(new CatalogVersion(3));
+        given(bookService.viewBookPage(0, 2)).willReturn(List.of(book1, book2));
+        mockMvc
+                .perform(get("/books").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(header().string(HttpHeaders.LINK, containsString("after=2")));
+    }
+
+    @Test
+    void whenGetBooksWithLastPageThenShouldNotReturnNextLink() throws Exception {
+        var book = new Book(3L, "7373731396", "Title", "Author", 9.90, "GoTop", null, null, null, null, 1);
+        given(bookService.viewCatalogVersion()).willReturn(new CatalogVersion(3));
+        given(bookService.viewBookPage(2, 100)).willReturn(List.of(book));
+        mockMvc
+                .perform(get("/books").param("after", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.LINK));
+    }
+
+    @Test
+    void whenGetBooksFilteredAndSortedWithFullPageThenShouldReturnNextCursor() throws Exception {
+        var book1 = new Book(7L, "7373731394", "Title", "Author", 19.90, "GoTop", null, null, null, null, 1);
+        var book2 = new Book(4L, "7373731395", "Title", "Author", 9.90, "GoTop", null, null, null, null, 1);
+        var filter = new BookFilter(null, "GoTop", null, 20.0, null);
+        given(bookService.viewFilteredBookPage(filter, BookSort.parse("-price"), null, 2, BookField.ALL))
+                .willReturn(List.of(book1, book2));
+        mockMvc
+                .perform(get("/books").param("publisher", "GoTop").param("maxPrice", "20")
+                        .param("sort", "-price").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[1].isbn").value("7373731395"))
+                .andExpect(header().string(HttpHeaders.LINK,
+                        containsString("cursor=" + new BookPageCursor("9.9", 4).encode(BookSort.parse("-price"), filter))));
+        then(bookService).should(never()).viewCatalogVersion();
+    }
+
+    @Test
+    void whenGetBooksWithCursorOfAnotherListingThenShouldReturn400() throws Exception {
+        var filter = new BookFilter(null, "GoTop", null, 20.0, null);
+        var cursor = new BookPageCursor("9.9", 4).encode(BookSort.parse("-price"), filter);
+        mockMvc
+                .perform(get("/books").param("publisher", "GoTop").param("maxPrice", "20")
+                        .param("sort", "price").param("cursor", cursor))
+                .andExpect(status().isBadRequest());
+        mockMvc
+                .perform(get("/books").param("publisher", "Manning").param("maxPrice", "20")
+                        .param("sort", "-price").param("cursor", cursor))
+                .andExpect(status().isBadRequest());
+        then(bookService).should(never()).viewFilteredBookPage(any(), any(), any(), anyInt(), any());
+    }
+
+    @Test
+    void whenGetBooksSortedByUnknownPropertyThenShouldReturn400() throws Exception {
+        mockMvc
+                .perform(get("/books").param("sort", "isbn"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void whenGetBooksByIsbnsThenShouldReturnFoundAndMissing() throws Exception {
+        var book = new Book(1L, "7373731394", "Title", "Author", 9.90, "GoTop", null, null, null, null, 1);
+        given(bookService.lookupBooks(List.of("7373731394", "7373731395")))
+                .willReturn(new BookLookupResult(List.of(book), List.of("7373731395")));
+        mockMvc
+                .perform(get("/books").param("isbn", "7373731394,7373731395,7373731394"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.books[0].isbn").value("7373731394"))
+                .andExpect(jsonPath("$.missing[0]").value("7373731395"));
+        then(bookService).should(never()).viewCatalogVersion();
+    }
+
+    @Test
+    void whenGetBooksByTooManyIsbnsThenShouldReturn400() throws Exception {
+        var isbns = new String[BookController.MAX_LOOKUP_SIZE + 1];
+        for (var i = 0; i < isbns.length; i++) {
+            isbns[i] = String.valueOf(1000000000L + i);
+        }
+        mockMvc
+                .perform(get("/books").param("isbn", isbns))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void whenGetChangesSinceCursorThenShouldReturnChangesAndNextCursor() throws Exception {
+        var since = new BookChangeCursor(Instant.parse("2024-07-01T21:50:44Z"), "7373731394");
+        var deletedDate = Instant.parse("2024-07-01T21:50:45Z");
+        var change = BookChange.delete("7373731395", deletedDate);
+        given(bookService.viewChangesAfter(since, 100))
+                .willReturn(new BookChangePage(List.of(change), change.cursor().encode(), false));
+        mockMvc
+                .perform(get("/books/changes").param("since", since.encode()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changes[0].type").value("DELETE"))
+                .andExpect(jsonPath("$.changes[0].isbn").value("7373731395"))
+                .andExpect(jsonPath("$.cursor").value(change.cursor().encode()))
+                .andExpect(jsonPath("$.hasMore").value(false));
+    }
+
+    @Test
+    void whenGetChangesWithMalformedCursorThenShouldReturn400() throws Exception {
+        mockMvc
+                .perform(get("/books/changes").param("since", "not a cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void whenGetAggregatesThenShouldReturnCatalogSummary() throws Exception {
+        given(bookService.viewCatalogSummary()).willReturn(new CatalogSummary(2,
+                Map.of("GoTop", 2L), Map.of("Author", 2L), new PriceStatistics(9.90, 19.90, 14.90)));
+        mockMvc
+                .perform(get("/books/aggregates"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(2))
+                .andExpect(jsonPath("$.countByPublisher.GoTop").value(2))
+                .andExpect(jsonPath("$.price.max").value(19.90));
+        then(bookService).should(never()).viewBookDetails("aggregates");
+    }
+
+    @Test
+    void whenGetBooksAsNdjsonThenShouldStreamOneBookPerLine() throws Exception {
+        var book1 = Book.of("7373731394", "Title", "Author", 9.90, "GoTop");
+        var book2 = Book.of("7373731395", "Title", "Author", 9.90, "GoTop");
+        willAnswer(invocation -> {
+            Consumer<Book> action = invocation.getArgument(0);
+            action.accept(book1);
+            action.accept(book2);
+            return null;
+        }).given(bookService).streamBookList(any());
+        var result = mockMvc
+                .perform(get("/books").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc
+                .perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(
+                        objectMapper.writeValueAsString(book1) + "\n" + objectMapper.writeValueAsString(book2)));
+    }
+
+    @Test
+    void whenGetBooksWithCurrentCatalogETagThenShouldReturn304() throws Exception {
+        var catalogVersion = new CatalogVersion(3);
+        given(bookService.viewCatalogVersion()).willReturn(catalogVersion);
+        mockMvc
+                .perform(get("/books")
+                        .header(HttpHeaders.IF_NONE_MATCH, BookETags.ofPage(catalogVersion, 0, 100)))
+                .andExpect(status().isNotModified());
+        then(bookService).should(never()).viewBookPage(0, 100);
+    }
+
+    @Test
+    void whenGetBookExistingThenShouldReturnETagAndLastModified() throws Exception {
+        var isbn = "7373731394";
+        var lastModified = Instant.parse("2024-07-01T21:50:44Z");
+        var book = new Book(7L, isbn, "Title", "Author", 9.90, "GoTop", lastModified, lastModified, null, null, 3);
+        given(bookService.viewBookDetails(isbn)).willReturn(book);
+        mockMvc
+                .perform(get("/books/" + isbn))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"7.3\""))
+                .andExpect(header().dateValue(HttpHeaders.LAST_MODIFIED, lastModified.toEpochMilli()));
+    }
+
+    @Test
+    void whenGetBookWithFieldsThenShouldReturnOnlyThoseFieldsUnderOwnETag() throws Exception {
+        var isbn = "7373731394";
+        var fields = BookField.parse("isbn,price");
+        var book = new Book(7L, isbn, "Title", "Author", 9.90, "GoTop", null, null, null, null, 3);
+        given(bookService.viewBookDetails(isbn)).willReturn(book);
+        mockMvc
+                .perform(get("/books/" + isbn).param("fields", "isbn,price"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"7.3+" + Integer.toHexString(BookField.mask(fields)) + "\""))
+                .andExpect(jsonPath("$.isbn").value(isbn))
+                .andExpect(jsonPath("$.price").value(9.90))
+                .andExpect(jsonPath("$.name").doesNotExist())
+                .andExpect(jsonPath("$.version").doesNotExist());
+    }
+
+    @Test
+    void whenGetBooksWithFieldsThenShouldReadAndReturnOnlyThoseFields() throws Exception {
+        var fields = BookField.parse("name");
+        var book = new Book(1L, null, "Title", null, null, null, null, null, null, null, 0);
+        given(bookService.viewCatalogVersion()).willReturn(new CatalogVersion(1));
+        given(bookService.viewBookPage(0, 100, fields)).willReturn(List.of(book));
+        mockMvc
+                .perform(get("/books").param("fields", "name"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("Title"))
+                .andExpect(jsonPath("$[0].id").doesNotExist());
+    }
+
+    @Test
+    void whenGetBooksWithUnknownFieldThenShouldReturn400() throws Exception {
+        mockMvc
+                .perform(get("/books").param("fields", "isbn,secret"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void whenGetBooksPageTwiceThenShouldReadAndSerializePageOnce() throws Exception {
+        var book = new Book(41L, "7373731394", "Title", "Author", 9.90, "GoTop", null, null, null, null, 1);
+        given(bookService.viewCatalogVersion()).willReturn(new CatalogVersion(41));
+        given(bookService.viewBookPage(40, 100)).willReturn(List.of(book));
+        for (var i = 0; i < 2; i++) {
+            mockMvc
+                    .perform(get("/books").param("after", "40"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].isbn").value(book.isbn()));
+        }
+        then(bookService).should(times(1)).viewBookPage(40, 100);
+    }
+
+    @Test
+    void whenGetLargeBooksPageAcceptingGzipThenShouldReturnCompressedBody() throws Exception {
+        var books = IntStream.range(0, 20)
+                .mapToObj(i -> new Book(100L + i, String.valueOf(7373731300L + i), "Title " + i, "Author", 9.90, "GoTop",
+                        null, null, null, null, 1))
+                .toList();
+        given(bookService.viewCatalogVersion()).willReturn(new CatalogVersion(119));
+        given(bookService.viewBookPage(99, 100)).willReturn(books);
+        var result = mockMvc
+                .perform(get("/books").param("after", "99").header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.VARY, containsString(HttpHeaders.ACCEPT_ENCODING)))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"c77-99-100-gz\""))
+                .andReturn();
+        try (var body = new GZIPInputStream(new ByteArrayInputStream(result.getResponse().getContentAsByteArray()))) {
+            assertThat(objectMapper.readValue(body, Book[].class)).hasSize(20);
+        }
+    }
+
+    @Test
+    void whenGetBookWithCurrentETagThenShouldReturn304WithoutLoadingBook() throws Exception {
+        var isbn = "7373731394";
+        given(bookService.viewBookVersion(isbn)).willReturn(Optional.of(new BookVersion(7L, 3, Instant.now())));
+        mockMvc
+                .perform(get("/books/" + isbn)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"7.3\""))
+                .andExpect(status().isNotModified());
+        then(bookService).should(never()).viewBookDetails(isbn);
+    }
+
+    @Test
+    void whenGetBookWithStaleETagThenShouldReturn200() throws Exception {
+        var isbn = "7373731394";
+        var book = new Book(7L, isbn, "Title", "Author", 9.90, "GoTop", null, null, null, null, 4);
+        given(bookService.viewBookVersion(isbn)).willReturn(Optional.of(BookVersion.of(book)));
+        given(bookService.viewBookDetails(isbn)).willReturn(book);
+        mockMvc
+                .perform(get("/books/" + isbn)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"7.3\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"7.4\""));
+    }
+
     @Test
     void whenGetBookExistingAndAuthenticatedThenShouldReturn200() throws Exception {
         var isbn = "7373731394";
@@ -74,6 +392,18 @@ class BookControllerMvcTests {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void whenGetBookNotExistingThenShouldCountNotFoundError() throws Exception {
+        var isbn = "7373731394";
+        var notFound = meterRegistry.get("catalog.errors").tag("outcome", "not_found").counter();
+        var before = notFound.count();
+        given(bookService.viewBookDetails(isbn)).willThrow(BookNotFoundException.class);
+        mockMvc
+                .perform(get("/books/" + isbn))
+                .andExpect(status().isNotFound());
+        assertThat(notFound.count()).isEqualTo(before + 1);
+    }
+
     @Test
     void whenGetBookNotExistingAndNotAuthenticatedThenShouldReturn404() throws Exception {
         var isbn = "7373731394";
@@ -109,6 +439,51 @@ class BookControllerMvcTests {
                 .andExpect(status().isUnauthorized());
     }
 
+    @Test
+    void whenDeleteBooksByIsbnsWithEmployeeRoleThenShouldReturnDeleted() throws Exception {
+        given(bookService.removeBooksFromCatalog(List.of("7373731394", "7373731395")))
+                .willReturn(new BookDeleteResult(1, List.of("7373731394")));
+        mockMvc
+                .perform(delete("/books")
+                        .param("isbn", "7373731394,7373731395,7373731394")
+                        .with(jwt().authorities(new SimpleGrantedAuthority(ROLE_EMPLOYEE))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted").value(1))
+                .andExpect(jsonPath("$.isbns[0]").value("7373731394"));
+    }
+
+    @Test
+    void whenDeleteBooksByPublisherWithEmployeeRoleThenShouldReturnDeleted() throws Exception {
+        given(bookService.removeBooksFromCatalog(new BookFilter(null, "GoTop", null, null, null),
+                BookController.MAX_DELETE_SIZE))
+                .willReturn(new BookDeleteResult(2, List.of("7373731394", "7373731395")));
+        mockMvc
+                .perform(delete("/books")
+                        .param("publisher", "GoTop")
+                        .with(jwt().authorities(new SimpleGrantedAuthority(ROLE_EMPLOYEE))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted").value(2))
+                .andExpect(jsonPath("$.more").value(false));
+    }
+
+    @Test
+    void whenDeleteBooksWithoutCriteriaThenShouldReturn400() throws Exception {
+        mockMvc
+                .perform(delete("/books")
+                        .with(jwt().authorities(new SimpleGrantedAuthority(ROLE_EMPLOYEE))))
+                .andExpect(status().isBadRequest());
+        then(bookService).shouldHaveNoInteractions();
+    }
+
+    @Test
+    void whenDeleteBooksWithCustomerRoleThenShouldReturn403() throws Exception {
+        mockMvc
+                .perform(delete("/books")
+                        .param("publisher", "GoTop")
+                        .with(jwt().authorities(new SimpleGrantedAuthority(ROLE_CUSTOMER))))
+                .andExpect(status().isForbidden());
+    }
+
     @Test
     void whenPostBookWithEmployeeRoleThenShouldReturn201() throws Exception {
         var isbn = "7373731394";
@@ -150,7 +525,7 @@ class BookControllerMvcTests {
     void whenPutBookWithEmployeeRoleThenShouldReturn200() throws Exception {
         var isbn = "7373731394";
         var bookToCreate = Book.of(isbn, "Title", "Author", 9.90, "GoTop");
-        given(bookService.addBookToCatalog(bookToCreate)).willReturn(bookToCreate);
+        given(bookService.editBookDetails(isbn, bookToCreate)).willReturn(bookToCreate);
         mockMvc
                 .perform(put("/books/" + isbn)
                         .contentType(MediaType.APPLICATION_JSON)
@@ -159,6 +534,132 @@ class BookControllerMvcTests {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    void whenPutBookWithCurrentETagThenShouldReturn200WithNewETag() throws Exception {
+        var isbn = "7373731394";
+        var book = Book.of(isbn, "Title", "Author", 9.90, "GoTop");
+        var savedBook = new Book(7L, isbn, "Title", "Author", 9.90, "GoTop", null, null, null, null, 4);
+        given(bookService.editBookDetails(isbn, book, new BookVersion(7L, 3, null))).willReturn(savedBook);
+        mockMvc
+                .perform(put("/books/" + isbn)
+                        .header(HttpHeaders.IF_MATCH, "\"7.3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(book))
+                        .with(jwt().authorities(new SimpleGrantedAuthority(ROLE_EMPLOYEE))))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"7.4\""));
+    }
+
+    @Test
+    void whenPutBookWithStaleETagThenShouldReturn412() throws Exception {
+        var isbn = "7373731394";
+        var book = Book.of(isbn, "Title", "Author", 9.90, "GoTop");
+        given(bookService.editBookDetails(isbn, book, new BookVersion(7L, 2, null)))
+                .willThrow(new BookVersionMismatchException(isbn));
+        mockMvc
+                .perform(put("/books/" + isbn)
+                        .header(HttpHeaders.IF_MATCH, "\"7.2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(book))
+                        .with(jwt().authorities(new SimpleGrantedAuthority(ROLE_EMPLOYEE))))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void whenPutBookWithPageETagThenShouldReturn412WithoutUpdating() throws Exception {
+        var isbn = "7373731394";
+        var book = Book.of(isbn, "Title", "Author", 9.90, "GoTop");
+        mockMvc
+                .perform(put("/books/" + isbn)
+                        .header(HttpHeaders.IF_MATCH, "\"a-1f-0-0-100\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(book))
+                        .with(jwt().authorities(new SimpleGrantedAuthority(ROLE_EMPLOYEE))))
+                .andExpect(status().isPreconditionFailed());
+        then(bookService).shouldHaveNoInteractions();
+    }
+
+    @Test
+    void whenPatchBookWithCurrentETagThenShouldReturn200() throws Exception {
+        var isbn = "7373731394";
+        var patch = new BookPatch(null, null, 12.50, null);
+        var savedBook = new Book(7L, isbn, "Title", "Author", 12.50, "GoTop", null, null, null, null, 4);
+        given(bookService.patchBookDetails(isbn, patch, new BookVersion(7L, 3, null))).willReturn(savedBook);
+        mockMvc
+                .perform(patch("/books/" + isbn)
+                        .header(HttpHeaders.IF_MATCH, "\"7.3\"")
+                        .contentType(BookController.MERGE_PATCH_JSON_VALUE)
+                        .content("{\"price\":12.50}")
+                        .with(jwt().authorities(new SimpleGrantedAuthority(ROLE_EMPLOYEE))))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"7.4\""))
+                .andExpect(jsonPath("$.price").value(12.50));
+    }
+
+    @Test
+    void whenPatchBookWithNullPublisherThenShouldRemoveIt() throws Exception {
+        var isbn = "7373731394";
+        var patch = new BookPatch(null, null, null, null, true);
+        var savedBook = new Book(7L, isbn, "Title", "Author", 9.90, null, null, null, null, null, 4);
+        given(bookService.patchBookDetails(isbn, patch, null)).willReturn(savedBook);
+        mockMvc
+                .perform(patch("/books/" + isbn)
+                        .contentType(BookController.MERGE_PATCH_JSON_VALUE)
+                        .content("{\"publisher\":null}")
+                        .with(jwt().authorities(new SimpleGrantedAuthority(ROLE_EMPLOYEE))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.publisher").doesNotExist());
+    }
+
+    @Test
+    void whenPatchBookWithNullNameOrNoPropertyThenShouldReturn400() throws Exception {
+        var isbn = "7373731394";
+        for (var content : List.of("{\"name\":null}", "{}")) {
+            mockMvc
+                    .perform(patch("/books/" + isbn)
+                            .contentType(BookController.MERGE_PATCH_JSON_VALUE)
+                            .content(content)
+                            .with(jwt().authorities(new SimpleGrantedAuthority(ROLE_EMPLOYEE))))
+                    .andExpect(status().isBadRequest());
+        }
+        then(bookService).shouldHaveNoInteractions();
+    }
+
+    @Test
+    void whenPatchBookWithUnknownPropertyThenShouldReturn400NamingIt() throws Exception {
+        var isbn = "7373731394";
+        mockMvc
+                .perform(patch("/books/" + isbn)
+                        .contentType(BookController.MERGE_PATCH_JSON_VALUE)
+                        .content("{\"isbn\":\"1234567890\"}")
+                        .with(jwt().authorities(new SimpleGrantedAuthority(ROLE_EMPLOYEE))))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("The book isbn cannot be patched."));
+        then(bookService).shouldHaveNoInteractions();
+    }
+
+    @Test
+    void whenPatchBookWithBlankNameThenShouldReturn400() throws Exception {
+        var isbn = "7373731394";
+        mockMvc
+                .perform(patch("/books/" + isbn)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\" \"}")
+                        .with(jwt().authorities(new SimpleGrantedAuthority(ROLE_EMPLOYEE))))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void whenPatchBookWithCustomerRoleThenShouldReturn403() throws Exception {
+        var isbn = "7373731394";
+        mockMvc
+                .perform(patch("/books/" + isbn)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"price\":12.50}")
+                        .with(jwt().authorities(new SimpleGrantedAuthority(ROLE_CUSTOMER))))
+                .andExpect(status().isForbidden());
+    }
+
     @Test
     void whenPutBookWithCustomerRoleThenShouldReturn403() throws Exception {
         var isbn = "7373731394";
@@ -183,4 +684,59 @@ class BookControllerMvcTests {
                 .andExpect(status().isUnauthorized());
     }
 
+    @Test
+    void whenImportNdjsonWithEmployeeRoleThenShouldReturnResult() throws Exception {
+        var book1 = Book.of("7373731394", "Title", "Author", 9.90, "GoTop");
+        var book2 = Book.of("7373731395", "Title", "Author", 9.90, "GoTop");
+        given(bookService.importBooks(any())).willAnswer(invocation -> {
+            MappingIterator<Book> books = invocation.getArgument(0);
+            var imported = 0;
+            for (; books.hasNextValue(); books.nextValue()) {
+                imported++;
+            }
+            return new BookImportResult(imported, List.of());
+        });
+        mockMvc
+                .perform(post("/books/import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(objectMapper.writeValueAsString(book1) + "\n" + objectMapper.writeValueAsString(book2))
+                        .with(jwt().authorities(new SimpleGrantedAuthority(ROLE_EMPLOYEE))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2));
+    }
+
+    @Test
+    void whenImportNdjsonWithMistypedRecordThenShouldReportItAndImportTheOthers() throws Exception {
+        var book1 = Book.of("7373731394", "Title", "Author", 9.90, "GoTop");
+        var book2 = Book.of("7373731395", "Title", "Author", 9.90, "GoTop");
+        var bookRepository = mock(BookRepository.class);
+        given(bookRepository.insertAll(anyList())).willAnswer(invocation -> {
+            List<Book> batch = invocation.getArgument(0);
+            return batch.stream().mapToInt(book -> 1).toArray();
+        });
+        var importer = new BookService(bookRepository, new BookCache(new BookCacheProperties(), meterRegistry),
+                new CatalogAggregates(bookRepository), Validation.buildDefaultValidatorFactory().getValidator());
+        given(bookService.importBooks(any())).willAnswer(invocation -> importer.importBooks(invocation.getArgument(0)));
+        mockMvc
+                .perform(post("/books/import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(objectMapper.writeValueAsString(book1) + "\n"
+                                + "{\"isbn\":\"7373731396\",\"name\":\"Title\",\"price\":\"cheap\"}\n"
+                                + objectMapper.writeValueAsString(book2))
+                        .with(jwt().authorities(new SimpleGrantedAuthority(ROLE_EMPLOYEE))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2))
+                .andExpect(jsonPath("$.errors[0].index").value(1));
+    }
+
+    @Test
+    void whenImportWithCustomerRoleThenShouldReturn403() throws Exception {
+        mockMvc
+                .perform(post("/books/import")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]")
+                        .with(jwt().authorities(new SimpleGrantedAuthority(ROLE_CUSTOMER))))
+                .andExpect(status().isForbidden());
+    }
+
 }
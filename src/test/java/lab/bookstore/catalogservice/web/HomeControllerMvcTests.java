@@ -7,6 +7,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
 import org.springframework.test.web.servlet.MockMvc;
@@ -16,6 +17,7 @@ import lab.bookstore.catalogservice.config.SecurityConfig;
 
 @WebMvcTest({ HomeController.class, LineProperties.class })
 @Import(SecurityConfig.class)
+@AutoConfigureObservability(tracing = false)
 class HomeControllerMvcTests {
 
 	@Autowired
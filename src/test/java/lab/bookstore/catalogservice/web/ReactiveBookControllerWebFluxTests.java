@@ -0,0 +1,209 @@
+package lab.bookstore.catalogservice.web;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+import static org.springframework.security.test.web.reactive.server.SecurityMockServerConfigurers.mockJwt;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import lab.bookstore.catalogservice.config.ReactiveSecurityConfig;
+import lab.bookstore.catalogservice.domain.Book;
+import lab.bookstore.catalogservice.domain.BookAlreadyExistsException;
+import lab.bookstore.catalogservice.domain.BookFilter;
+import lab.bookstore.catalogservice.domain.BookNotFoundException;
+import lab.bookstore.catalogservice.domain.BookPageCursor;
+import lab.bookstore.catalogservice.domain.BookPatch;
+import lab.bookstore.catalogservice.domain.BookSort;
+import lab.bookstore.catalogservice.domain.BookVersion;
+import lab.bookstore.catalogservice.domain.BookVersionMismatchException;
+import lab.bookstore.catalogservice.service.ReactiveBookService;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@WebFluxTest(ReactiveBookController.class)
+@Import(ReactiveSecurityConfig.class)
+@ActiveProfiles("reactive")
+@AutoConfigureObservability(tracing = false)
+class ReactiveBookControllerWebFluxTests {
+
+    private static final String ROLE_EMPLOYEE = "ROLE_employee";
+    private static final String ROLE_CUSTOMER = "ROLE_customer";
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    @MockBean
+    ReactiveBookService bookService;
+
+    @MockBean
+    ReactiveJwtDecoder reactiveJwtDecoder;
+
+    @Test
+    void whenGetBookNotExistingThenShouldReturn404() {
+        var isbn = "7373731394";
+        given(bookService.viewBookDetails(isbn)).willReturn(Mono.error(new BookNotFoundException(isbn)));
+        webTestClient
+                .get().uri("/books/" + isbn)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void whenGetBookWithCurrentETagThenShouldReturn304() {
+        var isbn = "7373731394";
+        var book = new Book(7L, isbn, "Title", "Author", 9.90, "GoTop", null, null, null, null, 3);
+        given(bookService.viewBookDetails(isbn)).willReturn(Mono.just(book));
+        webTestClient
+                .get().uri("/books/" + isbn)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"7.3\"")
+                .exchange()
+                .expectStatus().isNotModified();
+    }
+
+    @Test
+    void whenGetBooksAsNdjsonThenShouldStreamOneBookPerLine() {
+        var book1 = Book.of("7373731394", "Title", "Author", 9.90, "GoTop");
+        var book2 = Book.of("7373731395", "Title", "Author", 9.90, "GoTop");
+        given(bookService.streamBookList()).willReturn(Flux.just(book1, book2));
+        webTestClient
+                .get().uri("/books")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Book.class).containsExactly(book1, book2);
+    }
+
+    @Test
+    void whenGetBooksWithFullPageThenShouldReturnNextLink() {
+        var book1 = new Book(1L, "7373731394", "Title", "Author", 9.90, "GoTop", null, null, null, null, 1);
+        var book2 = new Book(2L, "7373731395", "Title", "Author", 9.90, "GoTop", null, null, null, null, 1);
+        given(bookService.viewBookPage(0, 2)).willReturn(Flux.just(book1, book2));
+        webTestClient
+                .get().uri("/books?limit=2")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().value(HttpHeaders.LINK, link -> link.contains("after=2"));
+    }
+
+    @Test
+    void whenGetBooksFilteredAndSortedWithFullPageThenShouldReturnNextCursor() {
+        var book1 = new Book(7L, "7373731394", "Title", "Author", 19.90, "GoTop", null, null, null, null, 1);
+        var book2 = new Book(4L, "7373731395", "Title", "Author", 9.90, "GoTop", null, null, null, null, 1);
+        var filter = new BookFilter(null, "GoTop", null, 20.0, null);
+        var sort = BookSort.parse("-price");
+        given(bookService.viewFilteredBookPage(filter, sort, null, 2)).willReturn(Flux.just(book1, book2));
+        webTestClient
+                .get().uri("/books?publisher=GoTop&maxPrice=20&sort=-price&limit=2&fields=isbn")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().value(HttpHeaders.LINK,
+                        link -> link.contains("cursor=" + new BookPageCursor("9.9", 4).encode(sort, filter)))
+                .expectBody()
+                .jsonPath("$[1].isbn").isEqualTo("7373731395")
+                .jsonPath("$[1].price").doesNotExist();
+    }
+
+    @Test
+    void whenGetAggregatesThenShouldNotReadThemAsIsbn() {
+        webTestClient
+                .get().uri("/books/aggregates")
+                .exchange()
+                .expectStatus().isNotFound();
+        then(bookService).should(never()).viewBookDetails(any());
+    }
+
+    @Test
+    void whenPatchBookWithCurrentETagThenShouldReturn200() {
+        var isbn = "7373731394";
+        var patch = new BookPatch(null, null, 12.50, null);
+        var savedBook = new Book(7L, isbn, "Title", "Author", 12.50, "GoTop", null, null, null, null, 4);
+        given(bookService.patchBookDetails(isbn, patch, new BookVersion(7L, 3, null))).willReturn(Mono.just(savedBook));
+        webTestClient
+                .mutateWith(mockJwt().authorities(new SimpleGrantedAuthority(ROLE_EMPLOYEE)))
+                .patch().uri("/books/" + isbn)
+                .header(HttpHeaders.IF_MATCH, "\"7.3\"")
+                .contentType(MediaType.valueOf(BookController.MERGE_PATCH_JSON_VALUE))
+                .bodyValue("{\"price\":12.50}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"7.4\"");
+    }
+
+    @Test
+    void whenPutBookWithStaleETagThenShouldReturn412() {
+        var isbn = "7373731394";
+        var book = Book.of(isbn, "Title", "Author", 9.90, "GoTop");
+        given(bookService.editBookDetails(isbn, book, new BookVersion(7L, 2, null)))
+                .willReturn(Mono.error(new BookVersionMismatchException(isbn)));
+        webTestClient
+                .mutateWith(mockJwt().authorities(new SimpleGrantedAuthority(ROLE_EMPLOYEE)))
+                .put().uri("/books/" + isbn)
+                .header(HttpHeaders.IF_MATCH, "\"7.2\"")
+                .bodyValue(book)
+                .exchange()
+                .expectStatus().isEqualTo(412);
+    }
+
+    @Test
+    void whenPostBookWithEmployeeRoleThenShouldReturn201() {
+        var bookToCreate = Book.of("7373731394", "Title", "Author", 9.90, "GoTop");
+        given(bookService.addBookToCatalog(bookToCreate)).willReturn(Mono.just(bookToCreate));
+        webTestClient
+                .mutateWith(mockJwt().authorities(new SimpleGrantedAuthority(ROLE_EMPLOYEE)))
+                .post().uri("/books")
+                .bodyValue(bookToCreate)
+                .exchange()
+                .expectStatus().isCreated();
+    }
+
+    @Test
+    void whenPostBookWithCustomerRoleThenShouldReturn403() {
+        var bookToCreate = Book.of("7373731394", "Title", "Author", 9.90, "GoTop");
+        webTestClient
+                .mutateWith(mockJwt().authorities(new SimpleGrantedAuthority(ROLE_CUSTOMER)))
+                .post().uri("/books")
+                .bodyValue(bookToCreate)
+                .exchange()
+                .expectStatus().isForbidden();
+        then(bookService).should(never()).addBookToCatalog(any());
+    }
+
+    @Test
+    void whenPostExistingBookThenShouldReturn422() {
+        var bookToCreate = Book.of("7373731394", "Title", "Author", 9.90, "GoTop");
+        given(bookService.addBookToCatalog(bookToCreate))
+                .willReturn(Mono.error(new BookAlreadyExistsException(bookToCreate.isbn())));
+        webTestClient
+                .mutateWith(mockJwt().authorities(new SimpleGrantedAuthority(ROLE_EMPLOYEE)))
+                .post().uri("/books")
+                .bodyValue(bookToCreate)
+                .exchange()
+                .expectStatus().isEqualTo(422);
+    }
+
+    @Test
+    void whenPostInvalidBookThenShouldReturn400WithFieldErrors() {
+        var bookToCreate = Book.of("123", "Title", "Author", 9.90, "GoTop");
+        webTestClient
+                .mutateWith(mockJwt().authorities(new SimpleGrantedAuthority(ROLE_EMPLOYEE)))
+                .post().uri("/books")
+                .bodyValue(bookToCreate)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.isbn").isEqualTo("The ISBN format must be valid.");
+    }
+
+}